@@ -0,0 +1,116 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.ShardedTransferEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time to absorb a burst of transfers between random accounts, reported per transfer:
+ * synchronous {@code transferMoney} from a pool of {@code clients} threads (row locks, one
+ * transaction per transfer) against the sharded engine (one writer per shard, group commit),
+ * where the burst is submitted at once and the benchmark waits for every status to settle.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncTransferBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final int BURST = 1000;
+
+    @Param({"sync", "async"})
+    public String path;
+
+    @Param("1000")
+    public int accounts;
+
+    @Param("64")
+    public int clients;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private ShardedTransferEngine transferEngine;
+    private ExecutorService clientPool;
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        accountService = context.getBean(AccountService.class);
+        transferEngine = context.getBean(ShardedTransferEngine.class);
+        clientPool = Executors.newFixedThreadPool(clients);
+        accountNumbers = BenchmarkApplication.seedAccounts(context, accounts, "USD", new BigDecimal("1000000000"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        clientPool.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void burst() throws InterruptedException, ExecutionException {
+        if ("sync".equals(path)) {
+            List<Future<?>> transfers = new ArrayList<>(BURST);
+            for (int i = 0; i < BURST; i++) {
+                String[] pair = randomPair();
+                transfers.add(clientPool.submit(() ->
+                        accountService.transferMoney(pair[0], pair[1], AMOUNT, "USD")));
+            }
+            for (Future<?> transfer : transfers) {
+                transfer.get();
+            }
+            return;
+        }
+
+        String[] ids = new String[BURST];
+        for (int i = 0; i < BURST; i++) {
+            String[] pair = randomPair();
+            ids[i] = transferEngine.submit(pair[0], pair[1], AMOUNT, "USD").id();
+        }
+        for (String id : ids) {
+            while ("pending".equals(transferEngine.findStatus(id).status())) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private String[] randomPair() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accounts);
+        int destination = random.nextInt(accounts - 1);
+        if (destination >= source) {
+            destination++;
+        }
+        return new String[]{accountNumbers[source], accountNumbers[destination]};
+    }
+}
@@ -0,0 +1,74 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.MoneyTransferApplication;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application for benchmarks, with per-statement SQL
+ * and transfer logging turned down so that console I/O does not dominate the measurement.
+ */
+final class BenchmarkApplication {
+
+    private static final String[] QUIET = {
+            "--spring.jpa.show-sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--logging.level.org.hibernate.SQL=WARN",
+            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+            "--logging.level.com.jpmorgan.moneytransfer=WARN"
+    };
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * Starts the application with its web layer on a random port, see {@link #port}.
+     */
+    static ConfigurableApplicationContext startWeb(String... properties) {
+        List<String> args = new ArrayList<>(List.of(properties));
+        args.add("server.port=0");
+        return start(WebApplicationType.SERVLET, args.toArray(new String[0]));
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        List<String> args = new ArrayList<>(List.of(QUIET));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(MoneyTransferApplication.class)
+                .web(webApplicationType)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Creates {@code count} accounts in the given currency and returns their account numbers.
+     */
+    static String[] seedAccounts(ConfigurableApplicationContext context, int count, String currencyCode, BigDecimal balance) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        String[] accountNumbers = new String[count];
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accountNumbers[i] = "bench-" + i;
+            accounts.add(new Account(accountNumbers[i], "Benchmark " + i, balance, currencyCode));
+        }
+        accountRepository.saveAll(accounts);
+        return accountNumbers;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.ExportFormat;
+import com.jpmorgan.moneytransfer.service.ImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to create {@code accounts} accounts with their opening ledger entries: {@code single} calls
+ * {@code createAccount} once per account, a transaction and a round trip per row, {@code bulk}
+ * imports the same accounts from a CSV stream in batched chunks. Every iteration loads into a
+ * fresh in-memory store.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkImportBenchmark {
+
+    @Param({"single", "bulk"})
+    public String path;
+
+    @Param("100000")
+    public int accounts;
+
+    private byte[] csv;
+    private int store;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void writeCsv() {
+        StringBuilder builder = new StringBuilder("accountNumber,ownerName,balance,currencyCode\r\n");
+        for (int i = 0; i < accounts; i++) {
+            builder.append("import-").append(i).append(",Owner ").append(i).append(",1000.0000,USD\r\n");
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Iteration)
+    public void start() {
+        context = BenchmarkApplication.start("spring.datasource.url=jdbc:h2:mem:import-" + store++);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public long load() throws IOException {
+        if ("bulk".equals(path)) {
+            return context.getBean(ImportService.class).importAccounts(new ByteArrayInputStream(csv), ExportFormat.CSV);
+        }
+        AccountService accountService = context.getBean(AccountService.class);
+        for (int i = 0; i < accounts; i++) {
+            accountService.createAccount(new Account("import-" + i, "Owner " + i, new BigDecimal("1000.0000"), "USD"));
+        }
+        return accounts;
+    }
+}
@@ -0,0 +1,121 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.service.AccountService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer throughput under contention, per concurrency mode and account-pair distribution.
+ * <p>
+ * {@code uniform} picks both accounts uniformly at random; {@code hot} routes every transfer
+ * through one of a handful of hot accounts, in either direction; {@code bidirectional} moves money
+ * back and forth between the same two accounts, the worst case for lock ordering. Run {@link #main} to sweep
+ * 1, 8, 64 and 512 concurrent clients:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.jpmorgan.moneytransfer.benchmark.ContentionBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final int HOT_ACCOUNTS = 4;
+
+    @Param({"database", "striped", "atomic"})
+    public String mode;
+
+    @Param({"uniform", "hot", "bidirectional"})
+    public String distribution;
+
+    @Param("1000")
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private String[] accountNumbers;
+    private int firstBound;
+    private int secondBound;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("moneytransfer.concurrency.mode=" + mode);
+        accountService = context.getBean(AccountService.class);
+        accountNumbers = BenchmarkApplication.seedAccounts(context, accounts, "USD", new BigDecimal("1000000000"));
+        firstBound = switch (distribution) {
+            case "hot" -> HOT_ACCOUNTS;
+            case "bidirectional" -> 1;
+            default -> accounts;
+        };
+        secondBound = "bidirectional".equals(distribution) ? 1 : accounts - 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            failed = 0;
+        }
+    }
+
+    @Benchmark
+    public Object transfer(Outcomes outcomes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(firstBound);
+        int second = random.nextInt(secondBound);
+        if (second >= first) {
+            second++;
+        }
+        boolean swap = random.nextBoolean();
+        String source = accountNumbers[swap ? second : first];
+        String destination = accountNumbers[swap ? first : second];
+        try {
+            return accountService.transferMoney(source, destination, AMOUNT, "USD");
+        } catch (RuntimeException e) {
+            // Lock timeouts that outlast the retries are part of the result, not a benchmark failure
+            outcomes.failed++;
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 8, 64, 512}) {
+            new Runner(new OptionsBuilder()
+                    .include(ContentionBenchmark.class.getName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
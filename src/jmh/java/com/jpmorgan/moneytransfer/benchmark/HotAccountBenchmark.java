@@ -0,0 +1,89 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.HotAccountCredits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit throughput into a single high fan-in merchant account: every transfer goes from a
+ * random source account to the merchant. {@code row-lock} is the regular path that locks and
+ * rewrites the merchant row for each deposit; {@code netting} flags the merchant as a hot account
+ * so deposits are queued and settled in micro-batches. At tear-down the pending credits are settled
+ * and the total balance is checked against the number of completed transfers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(32)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotAccountBenchmark {
+
+    private static final String MERCHANT = "merchant";
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final BigDecimal BALANCE = new BigDecimal("1000000000");
+
+    @Param({"row-lock", "netting"})
+    public String path;
+
+    @Param("1000")
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(
+                "moneytransfer.hot-accounts.account-numbers=" + ("netting".equals(path) ? MERCHANT : ""));
+        accountService = context.getBean(AccountService.class);
+        accountNumbers = BenchmarkApplication.seedAccounts(context, accounts, "USD", BALANCE);
+        context.getBean(AccountRepository.class).save(new Account(MERCHANT, "Merchant", BigDecimal.ZERO, "USD"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.getBean(HotAccountCredits.class).drain();
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        BigDecimal merchantBalance = accountRepository.findByAccountNumber(MERCHANT).orElseThrow().getBalance();
+        BigDecimal debited = BigDecimal.ZERO;
+        for (String accountNumber : accountNumbers) {
+            debited = debited.add(BALANCE.subtract(accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance()));
+        }
+        // Each transfer debits the amount plus a 1% fee and credits the plain amount
+        BigDecimal expectedDebit = merchantBalance.multiply(new BigDecimal("1.01"));
+        if (debited.compareTo(expectedDebit) != 0) {
+            throw new IllegalStateException("Balances diverged: merchant received " + merchantBalance
+                    + " but sources were debited " + debited);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Object deposit() {
+        String source = accountNumbers[ThreadLocalRandom.current().nextInt(accounts)];
+        return accountService.transferMoney(source, MERCHANT, AMOUNT, "USD");
+    }
+}
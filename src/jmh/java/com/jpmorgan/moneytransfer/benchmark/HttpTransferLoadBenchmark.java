@@ -0,0 +1,134 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load on {@code POST /api/accounts/transfer}: every benchmark thread is one
+ * client sending transfers between random accounts back to back.
+ * <p>
+ * {@code threads=platform} is the default Tomcat pool; {@code threads=virtual} activates the
+ * {@code virtual-threads} profile and needs a Java 21+ runtime. Both run with the same connection
+ * pool and bulkhead, so the comparison is only about the request threads. Throughput and the
+ * latency percentiles (p99 included) are reported side by side. Run {@link #main} to sweep
+ * 64, 256 and 1024 clients:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.jpmorgan.moneytransfer.benchmark.HttpTransferLoadBenchmark
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpTransferLoadBenchmark {
+
+    private static final String POOL_SIZE = "20";
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param("1000")
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI transferUri;
+    private String[] accountNumbers;
+
+    @Setup(Level.Trial)
+    public void start() {
+        if ("virtual".equals(threads) && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("threads=virtual needs a Java 21+ runtime, running on " + Runtime.version());
+        }
+        context = BenchmarkApplication.startWeb(
+                "spring.profiles.active=" + ("virtual".equals(threads) ? "virtual-threads" : "default"),
+                "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "moneytransfer.bulkhead.max-concurrent=" + POOL_SIZE);
+        accountNumbers = BenchmarkApplication.seedAccounts(context, accounts, "USD", new BigDecimal("1000000000"));
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        transferUri = URI.create("http://localhost:" + BenchmarkApplication.port(context) + "/api/accounts/transfer");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        // 503 from the bulkhead and 500 from lock timeouts that outlast the retries
+        public long rejected;
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rejected = 0;
+            failed = 0;
+        }
+    }
+
+    @Benchmark
+    public int transfer(Outcomes outcomes) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accounts);
+        int destination = random.nextInt(accounts - 1);
+        if (destination >= source) {
+            destination++;
+        }
+        String body = "{\"sourceAccountNumber\":\"" + accountNumbers[source]
+                + "\",\"destinationAccountNumber\":\"" + accountNumbers[destination]
+                + "\",\"amount\":1.00,\"currencyCode\":\"USD\"}";
+        HttpRequest request = HttpRequest.newBuilder(transferUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 503) {
+            outcomes.rejected++;
+        } else if (status != 200) {
+            outcomes.failed++;
+        }
+        return status;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int clients : new int[]{64, 256, 1024}) {
+            new Runner(new OptionsBuilder()
+                    .include(HttpTransferLoadBenchmark.class.getName())
+                    .threads(clients)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance math of one transfer (FX, fee, debit and credit) on {@link BigDecimal}, as the service
+ * used to do it, against {@link Money} units. Run with {@code -prof gc} to compare allocation:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="MoneyBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private static final BigDecimal TRANSACTION_FEE = new BigDecimal("0.01");
+    private static final long TRANSACTION_FEE_UNITS = 100L;
+
+    @Param({"false", "true"})
+    public boolean crossCurrency;
+
+    private BigDecimal amount;
+    private BigDecimal rate;
+    private BigDecimal sourceBalance;
+    private BigDecimal destinationBalance;
+
+    private long amountUnits;
+    private long rateUnits;
+    private long sourceBalanceUnits;
+    private long destinationBalanceUnits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        amount = new BigDecimal("123.45");
+        rate = new BigDecimal("7.2000");
+        sourceBalance = new BigDecimal("1000000.0000");
+        destinationBalance = new BigDecimal("2500.5000");
+
+        amountUnits = Money.toUnits(amount);
+        rateUnits = Money.toUnits(rate);
+        sourceBalanceUnits = Money.toUnits(sourceBalance);
+        destinationBalanceUnits = Money.toUnits(destinationBalance);
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        BigDecimal debit = crossCurrency ? amount.multiply(rate) : amount;
+        debit = debit.add(debit.multiply(TRANSACTION_FEE).setScale(4, RoundingMode.HALF_UP));
+        BigDecimal credit = crossCurrency ? amount.multiply(rate) : amount;
+        if (sourceBalance.compareTo(debit) < 0) {
+            throw new IllegalStateException("Insufficient funds");
+        }
+        blackhole.consume(sourceBalance.subtract(debit));
+        blackhole.consume(destinationBalance.add(credit));
+    }
+
+    @Benchmark
+    public void money(Blackhole blackhole) {
+        long debit = crossCurrency ? Money.multiply(amountUnits, rateUnits) : amountUnits;
+        debit = Money.add(debit, Money.multiply(debit, TRANSACTION_FEE_UNITS));
+        long credit = crossCurrency ? Money.multiply(amountUnits, rateUnits) : amountUnits;
+        if (sourceBalanceUnits < debit) {
+            throw new IllegalStateException("Insufficient funds");
+        }
+        blackhole.consume(Money.subtract(sourceBalanceUnits, debit));
+        blackhole.consume(Money.add(destinationBalanceUnits, credit));
+    }
+}
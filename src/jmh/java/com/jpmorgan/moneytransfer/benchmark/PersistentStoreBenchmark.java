@@ -0,0 +1,116 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time and transfer throughput of the in-memory store against the persistent {@code prod}
+ * profile on a file-backed H2 database.
+ * <p>
+ * {@code startup} restarts the application on an existing database: the file store has already
+ * been migrated, so Flyway only validates it, while the in-memory store is migrated on every start.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistentStoreBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"memory", "file"})
+    public String store;
+
+    private Path directory;
+    private String[] properties;
+
+    @Setup(Level.Trial)
+    public void createStore() throws IOException {
+        if ("file".equals(store)) {
+            directory = Files.createTempDirectory("moneytransfer-bench");
+            properties = new String[]{"spring.profiles.active=prod",
+                    "spring.datasource.url=jdbc:h2:file:" + directory.resolve("bankdb")
+                            + ";DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=64"};
+            // First start migrates the schema
+            BenchmarkApplication.start(properties).close();
+        } else {
+            properties = new String[0];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() throws IOException {
+        if (directory != null) {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void startup() {
+        BenchmarkApplication.start(properties).close();
+    }
+
+    @State(Scope.Benchmark)
+    public static class RunningApplication {
+
+        @Param("1000")
+        public int accounts;
+
+        private ConfigurableApplicationContext context;
+        private AccountService accountService;
+        private String[] accountNumbers;
+
+        @Setup(Level.Trial)
+        public void start(PersistentStoreBenchmark benchmark) {
+            context = BenchmarkApplication.start(benchmark.properties);
+            accountService = context.getBean(AccountService.class);
+            accountNumbers = BenchmarkApplication.seedAccounts(context, accounts, "USD", new BigDecimal("1000000000"));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    @Threads(8)
+    public Object transfer(RunningApplication application) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(application.accounts);
+        int destination = random.nextInt(application.accounts - 1);
+        if (destination >= source) {
+            destination++;
+        }
+        return application.accountService.transferMoney(application.accountNumbers[source],
+                application.accountNumbers[destination], AMOUNT, "USD");
+    }
+}
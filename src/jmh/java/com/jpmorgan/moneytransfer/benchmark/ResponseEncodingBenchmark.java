@@ -0,0 +1,81 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jpmorgan.moneytransfer.dto.AccountResponse;
+import com.jpmorgan.moneytransfer.dto.StatusResponse;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the response bodies of {@code POST /api/accounts/transfer} and
+ * {@code GET /api/accounts/{accountNumber}} to the response stream, as the message converter does:
+ * the former per-request {@code HashMap} and JPA entity against the response records.
+ * Run with {@code -prof gc} to see the allocation per response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseEncodingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ByteArrayOutputStream out;
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        out = new ByteArrayOutputStream(256);
+        account = new Account("1", "Alice", new BigDecimal("949.5000"), "USD");
+        account.setId(1L);
+        account.setVersion(3L);
+    }
+
+    @Benchmark
+    public int transferResponseMap() throws IOException {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Transfer completed successfully");
+        return write(response);
+    }
+
+    @Benchmark
+    public int transferResponseRecord() throws IOException {
+        return write(StatusResponse.TRANSFER_COMPLETED);
+    }
+
+    @Benchmark
+    public int accountEntity() throws IOException {
+        return write(account);
+    }
+
+    @Benchmark
+    public int accountResponse() throws IOException {
+        return write(AccountResponse.of(account));
+    }
+
+    private int write(Object body) throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, body);
+        return out.size();
+    }
+}
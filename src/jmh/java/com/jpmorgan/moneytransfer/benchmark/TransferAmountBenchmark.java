@@ -0,0 +1,82 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import com.jpmorgan.moneytransfer.service.CurrencyRateService;
+import com.jpmorgan.moneytransfer.service.TransferAmountCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fee and FX math of a transfer into or out of a USD account, without any database access:
+ * rates are served from the in-memory rate cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferAmountBenchmark {
+
+    private static final String ACCOUNT_CURRENCY = "USD";
+
+    // USD needs no conversion, CNY does
+    @Param({"USD", "CNY"})
+    public String currencyCode;
+
+    @Param({"40.00", "123456.78"})
+    public String amount;
+
+    private ConfigurableApplicationContext context;
+    private TransferAmountCalculator amountCalculator;
+    private CurrencyRateService currencyRateService;
+    private long value;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        amountCalculator = context.getBean(TransferAmountCalculator.class);
+        currencyRateService = context.getBean(CurrencyRateService.class);
+        value = Money.toUnits(new BigDecimal(amount));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public long debitAmount() {
+        return amountCalculator.computeDebitAmount(ACCOUNT_CURRENCY, value, currencyCode);
+    }
+
+    @Benchmark
+    public long creditAmount() {
+        return amountCalculator.computeCreditAmount(ACCOUNT_CURRENCY, value, currencyCode);
+    }
+
+    @Benchmark
+    public long transactionFee() {
+        return amountCalculator.computeTransactionFee(value);
+    }
+
+    @Benchmark
+    public long exchangeRate() {
+        return currencyRateService.convert("CNY", ACCOUNT_CURRENCY, value);
+    }
+}
@@ -0,0 +1,400 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.CurrencyRateCache;
+import com.jpmorgan.moneytransfer.service.TransferAmountCalculator;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load on {@code POST /api/accounts/transfer} against the application on an
+ * embedded in-memory H2 database.
+ * <p>
+ * Unlike the JMH benchmarks, whose clients wait for one response before sending the next request,
+ * requests are sent on a fixed schedule of {@code rate} per second whether or not earlier ones have
+ * completed. Latency is measured from the time a request was scheduled to be sent, so a stalled
+ * server or a late sender shows up in the percentiles instead of silently lowering the request rate
+ * (coordinated omission); the time from the actual send is reported next to it. Account pairs are
+ * drawn {@code uniform}ly, from a {@code zipf} distribution over the accounts (a few hot accounts
+ * take most transfers) or from a few fixed {@code bidirectional} pairs. Accounts are held in, and
+ * transfers are made in, currencies drawn from the {@code currencies} mix, so cross-currency
+ * conversions are part of the load. Everything random comes from {@code seed}, so two runs with the
+ * same options send the same transfers in the same order.
+ * <p>
+ * At the end, every account balance is checked against its opening balance plus the debits and
+ * credits of the transfers answered with {@code 200}, computed with the application's own fee and
+ * FX math, and the run fails if any differs. Options are {@code name=value} pairs; {@code spring.*}
+ * and {@code moneytransfer.*} ones are passed on to the application:
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.jpmorgan.moneytransfer.benchmark.TransferLoadHarness \
+ *     -Djmh.args="rate=1000 duration=PT60S distribution=zipf currencies=USD:80,JPN:20 moneytransfer.concurrency.mode=atomic"
+ * </pre>
+ */
+public final class TransferLoadHarness {
+
+    private static final Map<String, String> DEFAULTS = defaults();
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000000");
+    private static final int CREATE_CHUNK_SIZE = 1000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+
+    private final Map<String, String> options;
+    private final int accounts;
+    private final String[] accountNumbers;
+    private final String[] accountCurrencies;
+    private final String[] transferCurrencies;
+    private final double[] transferCurrencyWeights;
+    private final PairSampler pairs;
+    private final long amountUnits;
+    private final String amount;
+
+    private final Histogram responseTimes = new ConcurrentHistogram(3);
+    private final Histogram serviceTimes = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLongArray expectedDeltas;
+    private final AtomicLong lastMeasuredResponse = new AtomicLong();
+    private long measureFrom;
+
+    private TransferLoadHarness(Map<String, String> options) {
+        this.options = options;
+        this.accounts = Integer.parseInt(options.get("accounts"));
+        this.amount = options.get("amount");
+        this.amountUnits = Money.toUnits(new BigDecimal(amount));
+        Random random = new Random(Long.parseLong(options.get("seed")));
+
+        Map<String, Double> mix = parseMix(options.get("currencies"));
+        this.transferCurrencies = mix.keySet().toArray(new String[0]);
+        this.transferCurrencyWeights = cumulative(mix.values().stream().mapToDouble(Double::doubleValue).toArray());
+        this.accountNumbers = new String[accounts];
+        this.accountCurrencies = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNumbers[i] = "load-" + i;
+            accountCurrencies[i] = pick(transferCurrencies, transferCurrencyWeights, random.nextDouble());
+        }
+        this.expectedDeltas = new AtomicLongArray(accounts);
+
+        this.pairs = switch (options.get("distribution")) {
+            case "uniform" -> new UniformPairs(accounts);
+            case "zipf" -> new ZipfPairs(accounts, Double.parseDouble(options.get("zipf-exponent")));
+            case "bidirectional" -> new BidirectionalPairs(accounts, Integer.parseInt(options.get("pairs")));
+            default -> throw new IllegalArgumentException("Unknown distribution: " + options.get("distribution")
+                    + ", expected uniform, zipf or bidirectional");
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        List<String> properties = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            String name = arg.substring(0, separator);
+            if (name.startsWith("spring.") || name.startsWith("moneytransfer.")) {
+                properties.add(arg);
+            } else if (options.containsKey(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + name + ", expected one of " + DEFAULTS.keySet());
+            }
+        }
+
+        ConfigurableApplicationContext context = BenchmarkApplication.startWeb(properties.toArray(new String[0]));
+        try {
+            TransferLoadHarness harness = new TransferLoadHarness(options);
+            harness.seed(context);
+            harness.run(context);
+            harness.report(context);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        CurrencyRateCache currencyRateCache = context.getBean(CurrencyRateCache.class);
+        for (String currency : transferCurrencies) {
+            if (!currencyRateCache.isKnownCurrency(currency)) {
+                throw new IllegalArgumentException("No rates for currency: " + currency);
+            }
+        }
+        AccountService accountService = context.getBean(AccountService.class);
+        for (int from = 0; from < accounts; from += CREATE_CHUNK_SIZE) {
+            List<Account> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(accounts, from + CREATE_CHUNK_SIZE); i++) {
+                chunk.add(new Account(accountNumbers[i], "Load " + i, OPENING_BALANCE, accountCurrencies[i]));
+            }
+            accountService.createAccounts(chunk);
+        }
+    }
+
+    private void run(ConfigurableApplicationContext context) throws InterruptedException {
+        TransferAmountCalculator calculator = context.getBean(TransferAmountCalculator.class);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        URI transferUri = URI.create("http://localhost:" + BenchmarkApplication.port(context) + "/api/accounts/transfer");
+        Random random = new Random(Long.parseLong(options.get("seed")));
+
+        double rate = Double.parseDouble(options.get("rate"));
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long warmupNanos = Duration.parse(options.get("warmup")).toNanos();
+        long durationNanos = Duration.parse(options.get("duration")).toNanos();
+        long start = System.nanoTime();
+        measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        System.out.printf("Sending %.0f transfers/s for %s after a %s warm-up, %s pairs over %d accounts%n",
+                rate, options.get("duration"), options.get("warmup"), options.get("distribution"), accounts);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            long pair = pairs.next(random);
+            int source = (int) (pair >>> 32);
+            int destination = (int) pair;
+            String currency = pick(transferCurrencies, transferCurrencyWeights, random.nextDouble());
+            String body = "{\"sourceAccountNumber\":\"" + accountNumbers[source]
+                    + "\",\"destinationAccountNumber\":\"" + accountNumbers[destination]
+                    + "\",\"amount\":" + amount + ",\"currencyCode\":\"" + currency + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(transferUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+
+            boolean measured = intended - measureFrom >= 0;
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long completed = System.nanoTime();
+                        if (failure != null) {
+                            errors.increment();
+                            return;
+                        }
+                        if (response.statusCode() == 200) {
+                            expectedDeltas.addAndGet(source, -calculator.computeDebitAmount(
+                                    accountCurrencies[source], amountUnits, currency));
+                            expectedDeltas.addAndGet(destination, calculator.computeCreditAmount(
+                                    accountCurrencies[destination], amountUnits, currency));
+                        }
+                        if (measured) {
+                            statuses.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+                            responseTimes.recordValue(completed - intended);
+                            serviceTimes.recordValue(completed - sent);
+                            lastMeasuredResponse.accumulateAndGet(completed, Math::max);
+                        }
+                    }));
+        }
+        long sendingEnded = System.nanoTime();
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).exceptionally(failure -> null).join();
+        System.out.printf("Last response %d ms after the last request was scheduled%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sendingEnded));
+    }
+
+    private void report(ConfigurableApplicationContext context) throws FileNotFoundException {
+        long measured = responseTimes.getTotalCount();
+        double seconds = (lastMeasuredResponse.get() - measureFrom) / 1e9;
+        System.out.printf("%nMeasured %d responses, completed at %.1f/s; %d requests failed without a response%n",
+                measured, measured / seconds, errors.sum());
+        statuses.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(status -> System.out.printf("  HTTP %d: %d%n", status.getKey(), status.getValue().sum()));
+
+        System.out.printf("%n%-10s %16s %16s%n", "percentile", "response (ms)", "service (ms)");
+        for (double percentile : PERCENTILES) {
+            System.out.printf("%-10s %16.3f %16.3f%n", percentile == 100 ? "max" : "p" + percentile,
+                    responseTimes.getValueAtPercentile(percentile) / 1e6, serviceTimes.getValueAtPercentile(percentile) / 1e6);
+        }
+        String histogramFile = options.get("histogram-file");
+        if (!histogramFile.isEmpty()) {
+            try (PrintStream out = new PrintStream(histogramFile)) {
+                responseTimes.outputPercentileDistribution(out, 1e6);
+            }
+            System.out.println("Response time distribution (ms) written to " + histogramFile);
+        }
+
+        checkBalances(context);
+    }
+
+    private void checkBalances(ConfigurableApplicationContext context) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        long openingUnits = Money.toUnits(OPENING_BALANCE);
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        int mismatches = 0;
+        for (int from = 0; from < accounts; from += CREATE_CHUNK_SIZE) {
+            List<String> chunk = Arrays.asList(accountNumbers).subList(from, Math.min(accounts, from + CREATE_CHUNK_SIZE));
+            for (Account account : accountRepository.findAllByAccountNumberIn(chunk)) {
+                int index = Integer.parseInt(account.getAccountNumber().substring("load-".length()));
+                long expected = openingUnits + expectedDeltas.get(index);
+                long[] total = totals.computeIfAbsent(account.getCurrencyCode(), currency -> new long[2]);
+                total[0] += expected;
+                total[1] += account.getBalanceUnits();
+                if (account.getBalanceUnits() != expected) {
+                    mismatches++;
+                }
+            }
+        }
+
+        System.out.printf("%n%-8s %24s %24s%n", "currency", "expected total", "actual total");
+        totals.forEach((currency, total) -> System.out.printf("%-8s %24s %24s%n",
+                currency, Money.toBigDecimal(total[0]).toPlainString(), Money.toBigDecimal(total[1]).toPlainString()));
+        if (mismatches > 0) {
+            throw new IllegalStateException(mismatches + " account balances differ from their opening balance plus completed transfers"
+                    + (errors.sum() > 0 ? "; " + errors.sum() + " requests failed without a response and may have been applied" : ""));
+        }
+        System.out.println("Balances conserved: every account matches its opening balance plus completed transfers");
+    }
+
+    private static Map<String, String> defaults() {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("rate", "500");
+        defaults.put("duration", "PT30S");
+        defaults.put("warmup", "PT10S");
+        defaults.put("accounts", "1000");
+        defaults.put("distribution", "uniform");
+        defaults.put("zipf-exponent", "1.0");
+        defaults.put("pairs", "4");
+        defaults.put("currencies", "USD");
+        defaults.put("amount", "1.00");
+        defaults.put("seed", "42");
+        defaults.put("histogram-file", "");
+        return defaults;
+    }
+
+    // USD:80,JPN:20 -> {USD=0.8, JPN=0.2}; a currency without a weight counts as 1
+    private static Map<String, Double> parseMix(String currencies) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String entry : currencies.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0], parts.length > 1 ? Double.parseDouble(parts[1]) : 1.0);
+        }
+        double sum = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        weights.replaceAll((currency, weight) -> weight / sum);
+        return weights;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        cumulative[weights.length - 1] = 1.0;
+        return cumulative;
+    }
+
+    private static <T> T pick(T[] values, double[] cumulativeWeights, double sample) {
+        int index = Arrays.binarySearch(cumulativeWeights, sample);
+        return values[index >= 0 ? index : -index - 1];
+    }
+
+    /**
+     * Draws a source and a distinct destination account, packed as {@code source << 32 | destination}.
+     */
+    private interface PairSampler {
+        long next(Random random);
+
+        static long pack(int source, int destination) {
+            return ((long) source << 32) | destination;
+        }
+    }
+
+    private record UniformPairs(int accounts) implements PairSampler {
+        @Override
+        public long next(Random random) {
+            int source = random.nextInt(accounts);
+            int destination = random.nextInt(accounts - 1);
+            return PairSampler.pack(source, destination >= source ? destination + 1 : destination);
+        }
+    }
+
+    /**
+     * Both accounts are drawn with a probability proportional to {@code 1 / rank^exponent}, so
+     * {@code load-0} is the hottest account and an exponent of 1 sends about an eighth of all
+     * transfers to the hottest of 1000 accounts.
+     */
+    private static final class ZipfPairs implements PairSampler {
+        private final double[] cumulativeWeights;
+
+        ZipfPairs(int accounts, double exponent) {
+            double[] weights = new double[accounts];
+            double sum = 0;
+            for (int rank = 1; rank <= accounts; rank++) {
+                weights[rank - 1] = 1 / Math.pow(rank, exponent);
+                sum += weights[rank - 1];
+            }
+            for (int i = 0; i < accounts; i++) {
+                weights[i] /= sum;
+            }
+            this.cumulativeWeights = cumulative(weights);
+        }
+
+        @Override
+        public long next(Random random) {
+            int source = sample(random);
+            int destination;
+            do {
+                destination = sample(random);
+            } while (destination == source);
+            return PairSampler.pack(source, destination);
+        }
+
+        private int sample(Random random) {
+            int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    /**
+     * Moves money back and forth within a few fixed pairs, {@code load-0} with {@code load-1} and
+     * so on, the worst case for lock ordering.
+     */
+    private record BidirectionalPairs(int accounts, int pairs) implements PairSampler {
+        BidirectionalPairs {
+            if (pairs < 1 || pairs * 2 > accounts) {
+                throw new IllegalArgumentException("pairs must be between 1 and accounts / 2");
+            }
+        }
+
+        @Override
+        public long next(Random random) {
+            int first = random.nextInt(pairs) * 2;
+            return random.nextBoolean() ? PairSampler.pack(first, first + 1) : PairSampler.pack(first + 1, first);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jpmorgan.moneytransfer.dto.TransferMoneyDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a {@code POST /api/accounts/transfer} body into a validated {@link TransferMoneyDto}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferRequestBenchmark {
+
+    private static final String VALID = """
+            {"sourceAccountNumber":"1","destinationAccountNumber":"2","amount":40.00,"currencyCode":"USD"}""";
+    private static final String INVALID = """
+            {"sourceAccountNumber":"","destinationAccountNumber":"2","amount":-1,"currencyCode":null}""";
+
+    @Param({"valid", "invalid"})
+    public String payload;
+
+    private ObjectMapper objectMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private byte[] body;
+    private TransferMoneyDto dto;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        body = ("valid".equals(payload) ? VALID : INVALID).getBytes(StandardCharsets.UTF_8);
+        dto = objectMapper.readValue(body, TransferMoneyDto.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public TransferMoneyDto deserialize() throws IOException {
+        return objectMapper.readValue(body, TransferMoneyDto.class);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TransferMoneyDto>> validate() {
+        return validator.validate(dto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TransferMoneyDto>> deserializeAndValidate() throws IOException {
+        return validator.validate(objectMapper.readValue(body, TransferMoneyDto.class));
+    }
+}
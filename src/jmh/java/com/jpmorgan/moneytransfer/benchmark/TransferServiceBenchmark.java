@@ -0,0 +1,67 @@
+package com.jpmorgan.moneytransfer.benchmark;
+
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.TransferResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of one uncontended {@link AccountService#transferMoney} call against
+ * embedded H2: lock, FX, balance update, ledger append and commit.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferServiceBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"database", "striped"})
+    public String mode;
+
+    // USD accounts: USD transfers skip FX, CNY transfers convert on both sides
+    @Param({"USD", "CNY"})
+    public String currencyCode;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private String[] accountNumbers;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("moneytransfer.concurrency.mode=" + mode);
+        accountService = context.getBean(AccountService.class);
+        accountNumbers = BenchmarkApplication.seedAccounts(context, 1000, "USD", new BigDecimal("1000000000"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransferResult transfer() {
+        int source = next;
+        next = (next + 1) % accountNumbers.length;
+        return accountService.transferMoney(accountNumbers[source], accountNumbers[next], AMOUNT, currencyCode);
+    }
+}
@@ -1,45 +1,75 @@
 package com.jpmorgan.moneytransfer.config;
 
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
 import com.jpmorgan.moneytransfer.repository.CurrencyRateRepository;
 import com.jpmorgan.moneytransfer.repository.model.Account;
-import com.jpmorgan.moneytransfer.repository.AccountRepository;
 import com.jpmorgan.moneytransfer.repository.model.CurrencyRate;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.ExportFormat;
+import com.jpmorgan.moneytransfer.service.ImportService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 @Configuration
 public class DataInitializer {
 
     @Bean
-    public CommandLineRunner initData(AccountRepository accountRepository, CurrencyRateRepository currencyRatesRepository) {
+    public CommandLineRunner initData(AccountService accountService, AccountRepository accountRepository,
+                                      CurrencyRateRepository currencyRatesRepository, ImportService importService,
+                                      @Value("${moneytransfer.seed.accounts-file:}") String accountsFile,
+                                      @Value("${moneytransfer.seed.rates-file:}") String ratesFile) {
         return args -> {
+            // A persistent store keeps the data of the first start
+            if (currencyRatesRepository.count() > 0 || accountRepository.count() > 0) {
+                return;
+            }
+
+            // Load the given files instead of the sample data
+            if (!accountsFile.isEmpty() || !ratesFile.isEmpty()) {
+                if (!ratesFile.isEmpty()) {
+                    try (InputStream in = Files.newInputStream(Path.of(ratesFile))) {
+                        importService.importRates(in, formatOf(ratesFile));
+                    }
+                }
+                if (!accountsFile.isEmpty()) {
+                    try (InputStream in = Files.newInputStream(Path.of(accountsFile))) {
+                        importService.importAccounts(in, formatOf(accountsFile));
+                    }
+                }
+                return;
+            }
+
             // Create accounts
             Account account1 = new Account("1", "Alice", new BigDecimal("1000.00"), "USD");
             Account account2 = new Account("2", "Bob", new BigDecimal("500.00"), "JPN");
 
-            accountRepository.save(account1);
-            accountRepository.save(account2);
+            accountService.createAccounts(List.of(account1, account2));
 
             // Create currencyRates
-            CurrencyRate currencyRates = new CurrencyRate("AUD", "USD", new BigDecimal(0.5));
-            CurrencyRate currencyRates2 = new CurrencyRate("USD", "JPN", new BigDecimal(144.66));
-            CurrencyRate currencyRates3 = new CurrencyRate("AUD", "JPN", new BigDecimal(93.01));
-            CurrencyRate currencyRates4 = new CurrencyRate("JPN", "USD", new BigDecimal(0.0069));
-            CurrencyRate currencyRates5 = new CurrencyRate("USD", "CNY", new BigDecimal(7.2));
-            CurrencyRate currencyRates6 = new CurrencyRate("CNY", "USD", new BigDecimal(0.14));
-            CurrencyRate currencyRates7 = new CurrencyRate("CNY", "JPN", new BigDecimal(20.02));
-
-            currencyRatesRepository.save(currencyRates);
-            currencyRatesRepository.save(currencyRates2);
-            currencyRatesRepository.save(currencyRates3);
-            currencyRatesRepository.save(currencyRates4);
-            currencyRatesRepository.save(currencyRates5);
-            currencyRatesRepository.save(currencyRates6);
-            currencyRatesRepository.save(currencyRates7);
+            CurrencyRate currencyRates = new CurrencyRate("AUD", "USD", new BigDecimal("0.5"));
+            CurrencyRate currencyRates2 = new CurrencyRate("USD", "JPN", new BigDecimal("144.66"));
+            CurrencyRate currencyRates3 = new CurrencyRate("AUD", "JPN", new BigDecimal("93.01"));
+            CurrencyRate currencyRates4 = new CurrencyRate("JPN", "USD", new BigDecimal("0.0069"));
+            CurrencyRate currencyRates5 = new CurrencyRate("USD", "CNY", new BigDecimal("7.2"));
+            CurrencyRate currencyRates6 = new CurrencyRate("CNY", "USD", new BigDecimal("0.14"));
+            CurrencyRate currencyRates7 = new CurrencyRate("CNY", "JPN", new BigDecimal("20.02"));
+
+            currencyRatesRepository.saveAll(List.of(currencyRates, currencyRates2, currencyRates3, currencyRates4,
+                    currencyRates5, currencyRates6, currencyRates7));
 
         };
     }
-}
\ No newline at end of file
+
+    // The file extension names the format: .csv or .ndjson
+    private static ExportFormat formatOf(String file) {
+        return ExportFormat.of(file.substring(file.lastIndexOf('.') + 1));
+    }
+}
@@ -1,66 +1,215 @@
 package com.jpmorgan.moneytransfer.controller;
 
+import com.jpmorgan.moneytransfer.dto.AccountPage;
+import com.jpmorgan.moneytransfer.dto.AccountResponse;
+import com.jpmorgan.moneytransfer.dto.AsyncTransferStatus;
+import com.jpmorgan.moneytransfer.dto.BatchTransferResult;
+import com.jpmorgan.moneytransfer.dto.BulkCreateResult;
+import com.jpmorgan.moneytransfer.dto.StatusResponse;
 import com.jpmorgan.moneytransfer.dto.TransferMoneyDto;
+import com.jpmorgan.moneytransfer.exception.AccountNotFoundException;
+import com.jpmorgan.moneytransfer.exception.IdempotencyKeyConflictException;
 import com.jpmorgan.moneytransfer.exception.InsufficientFundsException;
+import com.jpmorgan.moneytransfer.exception.TransferRejectedException;
+import com.jpmorgan.moneytransfer.exception.TransferThrottledException;
 import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.service.AccountCache;
 import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.ExportFormat;
+import com.jpmorgan.moneytransfer.service.ExportService;
+import com.jpmorgan.moneytransfer.service.ShardedTransferEngine;
+import com.jpmorgan.moneytransfer.service.TransferAdmissionControl;
+import com.jpmorgan.moneytransfer.service.TransferResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/accounts")
 public class AccountController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final AccountService accountService;
+    private final AccountCache accountCache;
+    private final ShardedTransferEngine transferEngine;
+    private final ExportService exportService;
+    private final TransferAdmissionControl admissionControl;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, AccountCache accountCache,
+                             ShardedTransferEngine transferEngine, ExportService exportService,
+                             TransferAdmissionControl admissionControl, MeterRegistry meterRegistry) {
         this.accountService = accountService;
+        this.accountCache = accountCache;
+        this.exportService = exportService;
+        this.transferEngine = transferEngine;
+        this.admissionControl = admissionControl;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @GetMapping
+    public ResponseEntity<AccountPage> listAccounts(@RequestParam(defaultValue = "0") long afterId,
+                                                    @RequestParam(defaultValue = "100") int limit) {
+        List<Account> accounts = accountService.listAccounts(afterId, limit);
+        // A short page is the last one
+        Long nextAfterId = accounts.size() < limit ? null : accounts.get(accounts.size() - 1).getId();
+        return ResponseEntity.ok(new AccountPage(accounts.stream().map(AccountResponse::of).toList(), nextAfterId));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAccounts(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(out -> exportService.exportAccounts(exportFormat, out));
+    }
+
+    @GetMapping("/{accountNumber}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(@PathVariable String accountNumber,
+                                                                 @RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // Fail with a status code before the response is committed to streaming
+        accountCache.find(accountNumber);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(out -> exportService.exportStatement(accountNumber, exportFormat, out));
     }
 
     @GetMapping("/{accountNumber}")
-    public ResponseEntity<Account> getAccount(@PathVariable String accountNumber) {
-        return ResponseEntity.ok(accountService.findByAccountNumber(accountNumber));
+    public ResponseEntity<AccountResponse> getAccount(@PathVariable String accountNumber) {
+        return ResponseEntity.ok(AccountResponse.of(accountCache.find(accountNumber)));
     }
 
     @PostMapping
-    public ResponseEntity<Account> createAccount(@RequestBody @Valid Account account) {
-        return new ResponseEntity<>(accountService.createAccount(account), HttpStatus.CREATED);
+    public ResponseEntity<AccountResponse> createAccount(@RequestBody @Valid Account account) {
+        return new ResponseEntity<>(AccountResponse.of(accountService.createAccount(account)), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createAccounts(@RequestBody List<Account> accounts) {
+        try {
+            return new ResponseEntity<>(new BulkCreateResult(accountService.createAccounts(accounts)), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(StatusResponse.error(e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // Nothing was created
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(StatusResponse.error("Account numbers must be unique and not exist yet"));
+        }
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<?> transferMoney(@RequestBody @Valid TransferMoneyDto transferRequest) {
+    public ResponseEntity<StatusResponse> transferMoney(@RequestBody @Valid TransferMoneyDto transferRequest,
+                                                        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        // End to end, so it includes the backoff between retried attempts
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            accountService.transferMoney(
+            // Admitted once for all of its retries, which are what a spike of lock contention multiplies
+            TransferResult result = admissionControl.call(
                     transferRequest.getSourceAccountNumber(),
                     transferRequest.getDestinationAccountNumber(),
-                    transferRequest.getAmount(),
-                    transferRequest.getCurrencyCode()
-            );
-            
-            Map<String, String> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Transfer completed successfully");
+                    () -> accountService.transferMoney(
+                            transferRequest.getSourceAccountNumber(),
+                            transferRequest.getDestinationAccountNumber(),
+                            transferRequest.getAmount(),
+                            transferRequest.getCurrencyCode(),
+                            idempotencyKey
+                    ));
             
-            return ResponseEntity.ok(response);
+            outcome = result.replayed() ? "replayed" : "success";
+            return ResponseEntity.ok()
+                    .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                    .body(StatusResponse.TRANSFER_COMPLETED);
+        } catch (IdempotencyKeyConflictException e) {
+            outcome = "idempotency_conflict";
+            return ResponseEntity.unprocessableEntity().body(StatusResponse.error(e.getMessage()));
         } catch (InsufficientFundsException e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.badRequest().body(response);
+            outcome = "insufficient_funds";
+            return ResponseEntity.badRequest().body(StatusResponse.error(e.getMessage()));
+        } catch (AccountNotFoundException e) {
+            outcome = "account_not_found";
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(StatusResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            // A malformed Idempotency-Key, or a transfer the service rejects as invalid
+            outcome = "invalid_request";
+            return ResponseEntity.badRequest().body(StatusResponse.error(e.getMessage()));
+        } catch (TransferThrottledException e) {
+            outcome = "throttled";
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(StatusResponse.error(e.getMessage()));
+        } catch (TransferRejectedException e) {
+            outcome = "rejected";
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(StatusResponse.error(e.getMessage()));
         } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Transfer failed: " + e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            if (e instanceof CannotAcquireLockException) {
+                outcome = "lock_timeout";
+            } else if (e instanceof OptimisticLockingFailureException) {
+                outcome = "optimistic_lock";
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(StatusResponse.error("Transfer failed: " + e.getMessage()));
+        } finally {
+            sample.stop(Timer.builder("transfer.requests")
+                    .description("Transfer requests from receipt to response, retries and backoff included")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    @PostMapping("/transfer/async")
+    public ResponseEntity<?> submitTransfer(@RequestBody @Valid TransferMoneyDto transferRequest) {
+        try {
+            AsyncTransferStatus status = transferEngine.submit(
+                    transferRequest.getSourceAccountNumber(),
+                    transferRequest.getDestinationAccountNumber(),
+                    transferRequest.getAmount(),
+                    transferRequest.getCurrencyCode()
+            );
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/accounts/transfer/" + status.id()))
+                    .body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(StatusResponse.error(e.getMessage()));
+        } catch (AccountNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(StatusResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/transfer/{id}")
+    public ResponseEntity<AsyncTransferStatus> getTransferStatus(@PathVariable String id) {
+        AsyncTransferStatus status = transferEngine.findStatus(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<?> transferMoneyBatch(@RequestBody List<TransferMoneyDto> transferRequests) {
+        try {
+            List<BatchTransferResult> results = accountService.transferMoneyBatch(transferRequests);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(StatusResponse.error(e.getMessage()));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.jpmorgan.moneytransfer.dto;
+
+import java.util.List;
+
+/**
+ * One page of {@code GET /api/accounts}.
+ *
+ * @param accounts    accounts in id order
+ * @param nextAfterId value of {@code afterId} that requests the next page, or {@code null} on the last page
+ */
+public record AccountPage(List<AccountResponse> accounts, Long nextAfterId) {
+}
@@ -0,0 +1,20 @@
+package com.jpmorgan.moneytransfer.dto;
+
+import com.jpmorgan.moneytransfer.repository.model.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * An account as returned by the API, without the database id and the optimistic locking version.
+ */
+public record AccountResponse(String accountNumber, String ownerName, BigDecimal balance, String currencyCode) {
+
+    public static AccountResponse of(AccountSnapshot account) {
+        return new AccountResponse(account.accountNumber(), account.ownerName(), account.balance(), account.currencyCode());
+    }
+
+    public static AccountResponse of(Account account) {
+        return new AccountResponse(account.getAccountNumber(), account.getOwnerName(), account.getBalance(),
+                account.getCurrencyCode());
+    }
+}
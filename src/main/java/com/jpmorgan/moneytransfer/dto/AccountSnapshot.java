@@ -0,0 +1,22 @@
+package com.jpmorgan.moneytransfer.dto;
+
+import com.jpmorgan.moneytransfer.repository.model.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable copy of an account as of one committed version, safe to cache and share between
+ * threads. The API returns it as an {@link AccountResponse}.
+ */
+public record AccountSnapshot(Long id, String accountNumber, String ownerName, BigDecimal balance,
+                              String currencyCode, Long version) {
+
+    public static AccountSnapshot of(Account account) {
+        return new AccountSnapshot(account.getId(), account.getAccountNumber(), account.getOwnerName(),
+                account.getBalance(), account.getCurrencyCode(), account.getVersion());
+    }
+
+    public boolean isNewerThan(AccountSnapshot other) {
+        return version > other.version;
+    }
+}
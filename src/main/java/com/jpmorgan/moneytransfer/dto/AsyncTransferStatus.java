@@ -0,0 +1,24 @@
+package com.jpmorgan.moneytransfer.dto;
+
+/**
+ * State of a transfer submitted to {@code POST /api/accounts/transfer/async}.
+ *
+ * @param id         id the transfer was accepted under
+ * @param status     {@code pending}, {@code completed} or {@code failed}
+ * @param transferId id of the transfer in the ledger, once completed
+ * @param message    why the transfer failed
+ */
+public record AsyncTransferStatus(String id, String status, Long transferId, String message) {
+
+    public static AsyncTransferStatus pending(String id) {
+        return new AsyncTransferStatus(id, "pending", null, null);
+    }
+
+    public static AsyncTransferStatus completed(String id, Long transferId) {
+        return new AsyncTransferStatus(id, "completed", transferId, null);
+    }
+
+    public static AsyncTransferStatus failed(String id, String message) {
+        return new AsyncTransferStatus(id, "failed", null, message);
+    }
+}
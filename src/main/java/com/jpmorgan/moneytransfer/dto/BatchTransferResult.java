@@ -0,0 +1,19 @@
+package com.jpmorgan.moneytransfer.dto;
+
+/**
+ * Outcome of one item of a batch transfer request.
+ *
+ * @param index   position of the item in the submitted batch
+ * @param status  {@code success} or {@code error}
+ * @param message why the item failed, or a confirmation
+ */
+public record BatchTransferResult(int index, String status, String message) {
+
+    public static BatchTransferResult success(int index) {
+        return new BatchTransferResult(index, "success", "Transfer completed successfully");
+    }
+
+    public static BatchTransferResult error(int index, String message) {
+        return new BatchTransferResult(index, "error", message);
+    }
+}
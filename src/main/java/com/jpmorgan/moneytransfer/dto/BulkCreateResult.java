@@ -0,0 +1,9 @@
+package com.jpmorgan.moneytransfer.dto;
+
+/**
+ * Body of a successful {@code POST /api/accounts/bulk}.
+ *
+ * @param created number of accounts created
+ */
+public record BulkCreateResult(int created) {
+}
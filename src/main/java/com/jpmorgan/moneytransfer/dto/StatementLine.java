@@ -0,0 +1,18 @@
+package com.jpmorgan.moneytransfer.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One ledger entry of an account statement.
+ *
+ * @param entryId    id of the ledger entry
+ * @param transferId the transfer the entry belongs to, {@code null} for the opening balance
+ * @param entryType  {@code OPENING}, {@code DEBIT} or {@code CREDIT}
+ * @param amount     signed amount in the account's currency, fee included for debits
+ * @param balance    balance of the account after this entry
+ * @param createdAt  when the entry was written
+ */
+public record StatementLine(long entryId, Long transferId, String entryType, BigDecimal amount, BigDecimal balance,
+                            Instant createdAt) {
+}
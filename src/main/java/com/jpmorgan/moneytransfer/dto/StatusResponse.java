@@ -0,0 +1,19 @@
+package com.jpmorgan.moneytransfer.dto;
+
+/**
+ * Body of a transfer response and of error responses.
+ *
+ * @param status  {@code success} or {@code error}
+ * @param message why the request failed, or a confirmation
+ */
+public record StatusResponse(String status, String message) {
+
+    /**
+     * Every successful transfer gets the same body, so it is shared rather than built per request.
+     */
+    public static final StatusResponse TRANSFER_COMPLETED = new StatusResponse("success", "Transfer completed successfully");
+
+    public static StatusResponse error(String message) {
+        return new StatusResponse("error", message);
+    }
+}
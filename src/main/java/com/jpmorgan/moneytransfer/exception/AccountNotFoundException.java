@@ -0,0 +1,8 @@
+package com.jpmorgan.moneytransfer.exception;
+
+public class AccountNotFoundException extends RuntimeException {
+
+    public AccountNotFoundException(String message) {
+        super(message);
+    }
+}
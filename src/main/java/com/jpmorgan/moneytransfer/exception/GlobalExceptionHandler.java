@@ -1,5 +1,7 @@
 package com.jpmorgan.moneytransfer.exception;
 
+import com.jpmorgan.moneytransfer.dto.StatusResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -14,11 +16,35 @@ import java.util.Map;
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(InsufficientFundsException.class)
-    public ResponseEntity<Map<String, String>> handleInsufficientFundsException(InsufficientFundsException ex) {
-        Map<String, String> errors = new HashMap<>();
-        errors.put("status", "error");
-        errors.put("message", ex.getMessage());
-        return ResponseEntity.badRequest().body(errors);
+    public ResponseEntity<StatusResponse> handleInsufficientFundsException(InsufficientFundsException ex) {
+        return ResponseEntity.badRequest().body(StatusResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(AccountNotFoundException.class)
+    public ResponseEntity<StatusResponse> handleAccountNotFoundException(AccountNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(StatusResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<StatusResponse> handleIdempotencyKeyConflictException(IdempotencyKeyConflictException ex) {
+        return ResponseEntity.unprocessableEntity().body(StatusResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(TransferRejectedException.class)
+    public ResponseEntity<StatusResponse> handleTransferRejectedException(TransferRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(StatusResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(TransferThrottledException.class)
+    public ResponseEntity<StatusResponse> handleTransferThrottledException(TransferThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(StatusResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<StatusResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(StatusResponse.error(ex.getMessage()));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -33,10 +59,7 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, String>> handleGeneralExceptions(Exception ex) {
-        Map<String, String> errors = new HashMap<>();
-        errors.put("status", "error");
-        errors.put("message", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errors);
+    public ResponseEntity<StatusResponse> handleGeneralExceptions(Exception ex) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(StatusResponse.error(ex.getMessage()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.jpmorgan.moneytransfer.exception;
+
+public class TransferRejectedException extends RuntimeException {
+
+    public TransferRejectedException(String message) {
+        super(message);
+    }
+}
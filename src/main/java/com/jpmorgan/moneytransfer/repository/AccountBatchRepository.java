@@ -0,0 +1,52 @@
+package com.jpmorgan.moneytransfer.repository;
+
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Plain JDBC writes for bulk operations where going through the persistence context would
+ * cost one merge and one statement per row.
+ */
+@Repository
+public class AccountBatchRepository {
+
+    private static final String UPDATE_BALANCE =
+            "UPDATE accounts SET balance = ?, version = ? WHERE id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AccountBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Writes all balances with one JDBC batch, bumping each row's version. Fails if any row
+     * was changed since it was read, the same way a stale {@code @Version} would.
+     */
+    public void updateBalances(List<BalanceUpdate> updates) {
+        int[] updateCounts = jdbcTemplate.batchUpdate(UPDATE_BALANCE, updates, updates.size(), (ps, update) -> {
+            ps.setBigDecimal(1, Money.toBigDecimal(update.balance()));
+            ps.setLong(2, update.version() + 1);
+            ps.setLong(3, update.id());
+            ps.setLong(4, update.version());
+        })[0];
+
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                throw new ObjectOptimisticLockingFailureException("accounts", updates.get(i).id());
+            }
+        }
+    }
+
+    /**
+     * New balance, in {@link Money} units, for the account row with the given id, read at the given version.
+     */
+    public record BalanceUpdate(long id, long balance, long version) {
+    }
+}
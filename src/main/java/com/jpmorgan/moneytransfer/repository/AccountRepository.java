@@ -1,13 +1,18 @@
 package com.jpmorgan.moneytransfer.repository;
 
 import com.jpmorgan.moneytransfer.repository.model.Account;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,8 +20,34 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    boolean existsByAccountNumber(String accountNumber);
+
+    List<Account> findAllByAccountNumberIn(Collection<String> accountNumbers);
+
+    // Keyset pagination: seeks past the last id of the previous page on the primary key index,
+    // so every page costs the same however deep into the table it is
+    List<Account> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
     // Method with pessimistic lock to prevent concurrent modifications
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
     Optional<Account> findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
-}
\ No newline at end of file
+
+    // Locks all given accounts in one statement, always in accountNumber order so that
+    // concurrent transfers over the same accounts cannot deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.accountNumber")
+    List<Account> findAllByAccountNumberInWithLock(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // Atomic debit: the row lock is only held for this statement and, when the funds are not
+    // there, no row is updated. Bumps the version so that optimistic writers see the change
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, version = version + 1"
+            + " WHERE account_number = :accountNumber AND balance >= :amount", nativeQuery = true)
+    int debitIfSufficient(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, version = version + 1"
+            + " WHERE account_number = :accountNumber", nativeQuery = true)
+    int credit(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
+}
@@ -0,0 +1,17 @@
+package com.jpmorgan.moneytransfer.repository;
+
+import com.jpmorgan.moneytransfer.repository.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findFirstByAccountNumberOrderBySnapshotRunDesc(String accountNumber);
+
+    @Query("SELECT MAX(s.snapshotRun) FROM BalanceSnapshot s")
+    Long findMaxSnapshotRun();
+}
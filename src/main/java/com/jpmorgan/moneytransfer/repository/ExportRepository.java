@@ -0,0 +1,64 @@
+package com.jpmorgan.moneytransfer.repository;
+
+import com.jpmorgan.moneytransfer.dto.AccountResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC reads for exports over whole tables. Rows are handed to the caller one at a time
+ * while a forward-only cursor is read in chunks of {@value #FETCH_SIZE}, so nothing is collected
+ * in memory and no entity enters a persistence context. Drivers that only stream inside a
+ * transaction (PostgreSQL) need the caller to hold one.
+ */
+@Repository
+public class ExportRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_ACCOUNTS =
+            "SELECT account_number, owner_name, balance, currency_code FROM accounts ORDER BY id";
+    private static final String SELECT_ACCOUNT_NUMBERS = "SELECT account_number FROM accounts";
+    private static final String SELECT_LEDGER_ENTRIES =
+            "SELECT id, transfer_id, entry_type, amount, created_at FROM ledger_entries WHERE account_number = ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ExportRepository(DataSource dataSource) {
+        // A template of its own, so the fetch size does not apply to the application's other queries
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public void forEachAccount(Consumer<AccountResponse> action) {
+        jdbcTemplate.query(SELECT_ACCOUNTS, rs -> {
+            action.accept(new AccountResponse(rs.getString(1), rs.getString(2), rs.getBigDecimal(3), rs.getString(4)));
+        });
+    }
+
+    public void forEachAccountNumber(Consumer<String> action) {
+        jdbcTemplate.query(SELECT_ACCOUNT_NUMBERS, rs -> {
+            action.accept(rs.getString(1));
+        });
+    }
+
+    /**
+     * Visits the ledger entries of an account in the order they were written.
+     */
+    public void forEachLedgerEntry(String accountNumber, Consumer<LedgerEntryRow> action) {
+        jdbcTemplate.query(SELECT_LEDGER_ENTRIES, rs -> {
+            Long transferId = rs.getObject(2, Long.class);
+            action.accept(new LedgerEntryRow(rs.getLong(1), transferId, rs.getString(3),
+                    rs.getBigDecimal(4), rs.getTimestamp(5).toInstant()));
+        }, accountNumber);
+    }
+
+    public record LedgerEntryRow(long id, Long transferId, String entryType, BigDecimal amount, Instant createdAt) {
+    }
+}
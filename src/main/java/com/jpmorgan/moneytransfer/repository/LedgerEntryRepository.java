@@ -0,0 +1,35 @@
+package com.jpmorgan.moneytransfer.repository;
+
+import com.jpmorgan.moneytransfer.repository.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e WHERE e.accountNumber = :accountNumber " +
+            "AND (e.snapshotRun IS NULL OR e.snapshotRun > :afterRun)")
+    BigDecimal sumAmountsAfterRun(@Param("accountNumber") String accountNumber, @Param("afterRun") long afterRun);
+
+    // Stamps every committed entry not covered by a snapshot yet. Native, since the entity is
+    // immutable to Hibernate
+    @Modifying
+    @Query(value = "UPDATE ledger_entries SET snapshot_run = :run WHERE snapshot_run IS NULL", nativeQuery = true)
+    int stampSnapshotRun(@Param("run") long run);
+
+    @Query("SELECT e.accountNumber AS accountNumber, SUM(e.amount) AS total FROM LedgerEntry e " +
+            "WHERE e.snapshotRun = :run GROUP BY e.accountNumber")
+    List<AccountTotal> sumAmountsByAccount(@Param("run") long run);
+
+    interface AccountTotal {
+        String getAccountNumber();
+
+        BigDecimal getTotal();
+    }
+}
@@ -0,0 +1,19 @@
+package com.jpmorgan.moneytransfer.repository;
+
+import com.jpmorgan.moneytransfer.repository.model.PendingCredit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PendingCreditRepository extends JpaRepository<PendingCredit, Long> {
+
+    List<PendingCredit> findAllByAccountNumber(String accountNumber);
+
+    boolean existsByAccountNumber(String accountNumber);
+
+    @Query("SELECT DISTINCT p.accountNumber FROM PendingCredit p")
+    List<String> findDistinctAccountNumbers();
+}
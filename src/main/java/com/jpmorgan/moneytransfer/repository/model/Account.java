@@ -1,5 +1,6 @@
 package com.jpmorgan.moneytransfer.repository.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
@@ -9,8 +10,10 @@ import java.math.BigDecimal;
 @Table(name = "accounts")
 public class Account {
 
+    // Sequence with a pooled optimizer, so bulk inserts need no round trip for ids and can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -23,7 +26,8 @@ public class Account {
 
     @NotNull
     @Column(nullable = false, precision = 19, scale = 4)
-    private BigDecimal balance;
+    @Convert(converter = MoneyConverter.class)
+    private Long balance;
 
     @NotNull
     @Column(nullable = false, length = 3)
@@ -39,7 +43,7 @@ public class Account {
     public Account(String accountNumber, String ownerName, BigDecimal balance, String currencyCode) {
         this.accountNumber = accountNumber;
         this.ownerName = ownerName;
-        this.balance = balance;
+        setBalance(balance);
         this.currencyCode = currencyCode;
     }
 
@@ -69,11 +73,23 @@ public class Account {
     }
 
     public BigDecimal getBalance() {
-        return balance;
+        return balance == null ? null : Money.toBigDecimal(balance);
     }
 
     public void setBalance(BigDecimal balance) {
-        this.balance = balance;
+        this.balance = balance == null ? null : Money.toUnits(balance);
+    }
+
+    /**
+     * The balance in {@link Money} units, for arithmetic on the transfer path.
+     */
+    @JsonIgnore
+    public long getBalanceUnits() {
+        return balance;
+    }
+
+    public void setBalanceUnits(long balanceUnits) {
+        this.balance = balanceUnits;
     }
 
     public String getCurrencyCode() { return currencyCode; }
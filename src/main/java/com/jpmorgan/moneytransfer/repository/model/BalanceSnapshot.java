@@ -0,0 +1,70 @@
+package com.jpmorgan.moneytransfer.repository.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Balance of an account including every ledger entry stamped with a snapshot run up to and
+ * including {@code snapshotRun}, so that rebuilding a balance only needs to replay the entries
+ * stamped later or not yet.
+ */
+@Entity
+@Immutable
+@Table(name = "balance_snapshots", indexes = @Index(columnList = "accountNumber, snapshotRun", unique = true))
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshot_seq")
+    @SequenceGenerator(name = "balance_snapshot_seq", sequenceName = "balance_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(nullable = false)
+    private String accountNumber;
+
+    @NotNull
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal balance;
+
+    @NotNull
+    @Column(nullable = false)
+    private Long snapshotRun;
+
+    @NotNull
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public BalanceSnapshot() {
+    }
+
+    public BalanceSnapshot(String accountNumber, BigDecimal balance, Long snapshotRun, Instant createdAt) {
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.snapshotRun = snapshotRun;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public Long getSnapshotRun() {
+        return snapshotRun;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
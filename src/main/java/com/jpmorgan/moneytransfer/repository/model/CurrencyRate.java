@@ -6,7 +6,8 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "currencyrates")
+@Table(name = "currencyrates", uniqueConstraints = @UniqueConstraint(name = "uk_currencyrates_pair",
+        columnNames = {"from_currency", "to_currency"}))
 public class CurrencyRate {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
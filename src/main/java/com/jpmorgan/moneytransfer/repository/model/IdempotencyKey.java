@@ -0,0 +1,76 @@
+package com.jpmorgan.moneytransfer.repository.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * An {@code Idempotency-Key} that has been used for a completed transfer, written in the same
+ * transaction as the transfer itself. The primary key makes a concurrent duplicate fail to commit.
+ */
+@Entity
+@Immutable
+@Table(name = "idempotency_keys", indexes = @Index(columnList = "createdAt"))
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(length = 255)
+    private String idempotencyKey;
+
+    // Identifies the request the key was first used with, so a reused key cannot apply to another transfer
+    @NotNull
+    @Column(nullable = false, length = 64)
+    private String requestFingerprint;
+
+    @NotNull
+    @Column(nullable = false)
+    private Long transferId;
+
+    @NotNull
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Transient
+    private boolean isNew;
+
+    public IdempotencyKey() {
+    }
+
+    public IdempotencyKey(String idempotencyKey, String requestFingerprint, Long transferId, Instant createdAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+        this.transferId = transferId;
+        this.createdAt = createdAt;
+        this.isNew = true;
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    // Keys are only ever inserted, so save() persists without selecting first
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public Long getTransferId() {
+        return transferId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,100 @@
+package com.jpmorgan.moneytransfer.repository.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One signed movement on one account, in the account's currency. The balance of an account is
+ * the sum of its entries; rows are append-only and their ids increase in insertion order, though
+ * not necessarily in commit order. Only {@code snapshotRun} is set later, once, by the snapshot run
+ * that covers the entry.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entries", indexes = {
+        @Index(columnList = "accountNumber, id"),
+        @Index(columnList = "snapshotRun"),
+        @Index(columnList = "accountNumber, snapshotRun")
+})
+public class LedgerEntry {
+
+    public enum EntryType {
+        // Balance the account was created with
+        OPENING,
+        // Amount taken from the source account of a transfer, fee included
+        DEBIT,
+        // Amount added to the destination account of a transfer
+        CREDIT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_seq", allocationSize = 50)
+    private Long id;
+
+    // Null for entries that are not part of a transfer, e.g. opening balances
+    private Long transferId;
+
+    @NotNull
+    @Column(nullable = false)
+    private String accountNumber;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EntryType entryType;
+
+    @NotNull
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @NotNull
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Null until a balance snapshot covers the entry
+    private Long snapshotRun;
+
+    public LedgerEntry() {
+    }
+
+    public LedgerEntry(Long transferId, String accountNumber, EntryType entryType, BigDecimal amount, Instant createdAt) {
+        this.transferId = transferId;
+        this.accountNumber = accountNumber;
+        this.entryType = entryType;
+        this.amount = amount;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getTransferId() {
+        return transferId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public EntryType getEntryType() {
+        return entryType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getSnapshotRun() {
+        return snapshotRun;
+    }
+}
@@ -0,0 +1,69 @@
+package com.jpmorgan.moneytransfer.repository.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on {@code long} units of 1/10,000, the scale of every amount,
+ * balance and rate column ({@code precision = 19, scale = 4}).
+ * <p>
+ * Amounts are plain {@code long}s so the transfer path does not allocate; {@link BigDecimal} is
+ * only used at the edges (API, JDBC). Every currency uses the same scale, since it is the scale
+ * the ledger books in. Rounding is explicit and happens in exactly two places:
+ * <ul>
+ *     <li>{@link #toUnits(BigDecimal)}: amounts with more than 4 decimals are rounded half up</li>
+ *     <li>{@link #multiply(long, long)}: the product of two scaled values is rounded half up
+ *     (ties away from zero), the same as {@code BigDecimal.setScale(4, RoundingMode.HALF_UP)}</li>
+ * </ul>
+ * Addition and subtraction are exact; overflow throws {@link ArithmeticException}. The range
+ * is ±922,337,203,685,477.5807.
+ */
+public final class Money {
+
+    public static final int SCALE = 4;
+    public static final long UNITS_PER_WHOLE = 10_000L;
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+    private Money() {
+    }
+
+    /**
+     * @throws ArithmeticException if the amount is out of range
+     */
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, ROUNDING).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    public static long add(long units, long otherUnits) {
+        return Math.addExact(units, otherUnits);
+    }
+
+    public static long subtract(long units, long otherUnits) {
+        return Math.subtractExact(units, otherUnits);
+    }
+
+    /**
+     * Multiplies an amount by a factor (a rate or a fee ratio), both in units, and rounds the
+     * result back to units.
+     */
+    public static long multiply(long units, long factorUnits) {
+        long product;
+        try {
+            product = Math.multiplyExact(units, factorUnits);
+        } catch (ArithmeticException e) {
+            // Only intermediate products this large need the slow path; the result may still fit
+            return toUnits(toBigDecimal(units).multiply(toBigDecimal(factorUnits)));
+        }
+
+        long quotient = product / UNITS_PER_WHOLE;
+        long remainder = product % UNITS_PER_WHOLE;
+        if (Math.abs(remainder) * 2 >= UNITS_PER_WHOLE) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,23 @@
+package com.jpmorgan.moneytransfer.repository.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link Money} units to a {@code DECIMAL(19, 4)} column.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long units) {
+        return units == null ? null : Money.toBigDecimal(units);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.toUnits(amount);
+    }
+}
@@ -0,0 +1,61 @@
+package com.jpmorgan.moneytransfer.repository.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * A credit to a hot account that has been accepted but not yet folded into its balance.
+ * Rows are only ever inserted by transfers and deleted by the settling writer, so appending
+ * one never contends on the account row.
+ */
+@Entity
+@Table(name = "pending_credits", indexes = @Index(columnList = "accountNumber"))
+public class PendingCredit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(nullable = false)
+    private String accountNumber;
+
+    // Amount in the currency of the credited account
+    @NotNull
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    public PendingCredit() {
+    }
+
+    public PendingCredit(String accountNumber, BigDecimal amount) {
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,79 @@
+package com.jpmorgan.moneytransfer.repository.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A completed transfer as requested by the client. Its effect on the accounts is recorded as
+ * {@link LedgerEntry} rows referencing it. Rows are never updated once written.
+ */
+@Entity
+@Immutable
+@Table(name = "transfers")
+public class Transfer {
+
+    // Sequence with a pooled optimizer, so appends need no round trip for ids and can be batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_seq")
+    @SequenceGenerator(name = "transfer_seq", sequenceName = "transfer_seq", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(nullable = false)
+    private String sourceAccountNumber;
+
+    @NotNull
+    @Column(nullable = false)
+    private String destinationAccountNumber;
+
+    @NotNull
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @NotNull
+    @Column(nullable = false, length = 3)
+    private String currencyCode;
+
+    @NotNull
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public Transfer() {
+    }
+
+    public Transfer(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount, String currencyCode, Instant createdAt) {
+        this.sourceAccountNumber = sourceAccountNumber;
+        this.destinationAccountNumber = destinationAccountNumber;
+        this.amount = amount;
+        this.currencyCode = currencyCode;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSourceAccountNumber() {
+        return sourceAccountNumber;
+    }
+
+    public String getDestinationAccountNumber() {
+        return destinationAccountNumber;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
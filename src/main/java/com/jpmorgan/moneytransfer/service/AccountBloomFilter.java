@@ -0,0 +1,62 @@
+package com.jpmorgan.moneytransfer.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter of account numbers: {@link #mightContain} never answers {@code false}
+ * for an account number that was {@link #put}, and answers {@code true} for one that was not
+ * with roughly the configured probability, as long as no more than the expected number of
+ * accounts were added. Bit positions come from the cached {@link String#hashCode()} with double
+ * hashing, so a lookup does not walk the string.
+ */
+final class AccountBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    AccountBloomFilter(long expectedAccounts, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-expectedAccounts * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedAccounts * Math.log(2)));
+    }
+
+    void put(String accountNumber) {
+        long hash = mix(accountNumber.hashCode());
+        long increment = mix(hash) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, set) -> current | set);
+            }
+            hash += increment;
+        }
+    }
+
+    boolean mightContain(String accountNumber) {
+        long hash = mix(accountNumber.hashCode());
+        long increment = mix(hash) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            hash += increment;
+        }
+        return true;
+    }
+
+    // Finalizer of MurmurHash3, spreads every input bit over the whole word
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
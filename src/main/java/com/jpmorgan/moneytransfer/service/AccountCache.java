@@ -0,0 +1,150 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jpmorgan.moneytransfer.dto.AccountSnapshot;
+import com.jpmorgan.moneytransfer.exception.AccountNotFoundException;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Read-through cache of accounts for {@code GET /api/accounts/{accountNumber}}.
+ * <p>
+ * Entries are {@link AccountSnapshot} copies, never managed entities. Every committed update of an
+ * account row refreshes its entry: updates made through Hibernate are picked up by a post-commit
+ * listener, the JDBC batch writes of {@link AccountService} report theirs after commit, and the
+ * in-place updates of {@link ConcurrencyMode#ATOMIC} transfers evict the entry after commit. An entry
+ * is only ever replaced by a snapshot with a higher {@code @Version}, so a read that loaded the row
+ * before a concurrent commit cannot put the older balance back once the commit has refreshed it.
+ */
+@Service
+public class AccountCache {
+
+    private final AccountRepository accountRepository;
+    private final Cache<String, AccountSnapshot> cache;
+    // An account's currency never changes, so these entries are never evicted by updates
+    private final Cache<String, String> currencyCodes;
+
+    @Autowired
+    public AccountCache(AccountRepository accountRepository,
+                        EntityManagerFactory entityManagerFactory,
+                        @Value("${moneytransfer.account-cache.size:100000}") long cacheSize,
+                        @Value("${moneytransfer.account-cache.ttl:PT10M}") Duration cacheTtl,
+                        MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "accounts");
+        this.currencyCodes = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, currencyCodes, "account.currencies");
+
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_COMMIT_UPDATE, new CommittedAccountUpdates());
+    }
+
+    /**
+     * Returns the account, loading it on a cache miss.
+     */
+    public AccountSnapshot find(String accountNumber) {
+        AccountSnapshot snapshot = findIfExists(accountNumber);
+        if (snapshot == null) {
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the account, loading it on a cache miss, or {@code null} if there is no such account.
+     */
+    public AccountSnapshot findIfExists(String accountNumber) {
+        // A commit of the same account waits for the load and then replaces what it returned
+        return cache.get(accountNumber, number -> accountRepository.findByAccountNumber(number)
+                .map(AccountSnapshot::of)
+                .orElse(null));
+    }
+
+    /**
+     * Returns the currency of the account, or {@code null} if there is no such account.
+     */
+    public String findCurrencyCode(String accountNumber) {
+        return currencyCodes.get(accountNumber, number -> {
+            AccountSnapshot snapshot = findIfExists(number);
+            return snapshot == null ? null : snapshot.currencyCode();
+        });
+    }
+
+    /**
+     * Refreshes the entry of an account written without Hibernate once the current transaction commits.
+     */
+    public void updateAfterCommit(AccountSnapshot snapshot) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(snapshot);
+            }
+        });
+    }
+
+    /**
+     * Drops the entry of an account updated in place by SQL, whose new state is not known here,
+     * once the current transaction commits.
+     */
+    public void evictAfterCommit(String accountNumber) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Waits for a load in progress, so a balance read before the commit is dropped too
+                cache.invalidate(accountNumber);
+            }
+        });
+    }
+
+    private void update(AccountSnapshot snapshot) {
+        // Accounts that are not being read are left out rather than filling the cache with writes
+        cache.asMap().computeIfPresent(snapshot.accountNumber(),
+                (accountNumber, cached) -> snapshot.isNewerThan(cached) ? snapshot : cached);
+    }
+
+    private final class CommittedAccountUpdates implements PostCommitUpdateEventListener {
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof Account account) {
+                update(AccountSnapshot.of(account));
+            }
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            // Rolled back: the cached snapshot is still the committed state
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return Account.class.equals(persister.getMappedClass());
+        }
+    }
+}
@@ -1,119 +1,681 @@
 package com.jpmorgan.moneytransfer.service;
 
+import com.jpmorgan.moneytransfer.dto.AccountSnapshot;
+import com.jpmorgan.moneytransfer.dto.BatchTransferResult;
+import com.jpmorgan.moneytransfer.dto.TransferMoneyDto;
+import com.jpmorgan.moneytransfer.exception.AccountNotFoundException;
 import com.jpmorgan.moneytransfer.exception.InsufficientFundsException;
+import com.jpmorgan.moneytransfer.exception.TransferRejectedException;
+import com.jpmorgan.moneytransfer.repository.AccountBatchRepository;
 import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import com.jpmorgan.moneytransfer.repository.model.Transfer;
 import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.CannotAcquireLockException;
-import org.springframework.retry.annotation.Backoff;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.retry.RetryContext;
 import org.springframework.retry.annotation.Retryable;
+import org.springframework.retry.support.RetrySynchronizationManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Account lookups and transfers.
+ * <p>
+ * Every transfer attempt is broken down into meters: {@code transfer.lock.wait} (acquiring the
+ * account locks), {@code transfer.balance.update} (balance, ledger and idempotency changes, FX
+ * included, which {@code transfer.fx.lookup} also reports on its own) and {@code transfer.commit}
+ * (flushing the changed rows and committing). Retries after lock failures are counted in
+ * {@code transfer.retries} by {@link TransferRetryPolicy}; the backoff between them only shows in
+ * the end-to-end {@code transfer.requests} timer of the controller. Single transfers in {@link ConcurrencyMode#ATOMIC}
+ * mode take no lock up front, so they record no lock wait; their row lock waits are part of
+ * {@code transfer.balance.update}.
+ */
 @Service
 public class AccountService {
     private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
 
+    // Accounts persisted between two flushes of a bulk create; a multiple of hibernate.jdbc.batch_size
+    private static final int BULK_FLUSH_INTERVAL = 1000;
+
     private final AccountRepository accountRepository;
-    private final CurrencyRateService currencyRateService;
-    private final BigDecimal TRANSACTION_FEE = new BigDecimal("0.01");
+    private final AccountBatchRepository accountBatchRepository;
+    private final AccountCache accountCache;
+    private final TransferAmountCalculator amountCalculator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final StripedAccountLocks stripedAccountLocks;
+    private final TransferBulkhead bulkhead;
+    private final HotAccountCredits hotAccountCredits;
+    private final LedgerService ledgerService;
+    private final IdempotencyService idempotencyService;
+    private final TransferTracer tracer;
+    private final TransferPreValidator preValidator;
+    private final ConcurrencyMode concurrencyMode;
+    private final int maxBatchSize;
+    private final int maxPageSize;
+    private final int maxBulkSize;
+    private final MeterRegistry meterRegistry;
+    private final Timer lockWaitTimer;
+    private final Timer balanceUpdateTimer;
+    private final Timer transferCommitTimer;
+    private final Timer batchCommitTimer;
+    private final Timer rebuildCommitTimer;
+    private final Counter insufficientFundsCounter;
+    private final Counter accountNotFoundCounter;
+    private final ConcurrentMap<String, DistributionSummary> amountSummaries = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightTransfers = new AtomicInteger();
 
     @Autowired
-    public AccountService(AccountRepository accountRepository, CurrencyRateService currencyRateService) {
+    public AccountService(AccountRepository accountRepository,
+                          AccountBatchRepository accountBatchRepository,
+                          AccountCache accountCache,
+                          TransferAmountCalculator amountCalculator,
+                          TransactionTemplate transactionTemplate,
+                          EntityManager entityManager,
+                          Validator validator,
+                          StripedAccountLocks stripedAccountLocks,
+                          TransferBulkhead bulkhead,
+                          HotAccountCredits hotAccountCredits,
+                          LedgerService ledgerService,
+                          IdempotencyService idempotencyService,
+                          TransferTracer tracer,
+                          TransferPreValidator preValidator,
+                          @Value("${moneytransfer.concurrency.mode:database}") ConcurrencyMode concurrencyMode,
+                          @Value("${moneytransfer.batch.max-size:10000}") int maxBatchSize,
+                          @Value("${moneytransfer.accounts.max-page-size:1000}") int maxPageSize,
+                          @Value("${moneytransfer.accounts.max-bulk-size:10000}") int maxBulkSize,
+                          MeterRegistry meterRegistry) {
         this.accountRepository = accountRepository;
-        this.currencyRateService = currencyRateService;
+        this.accountBatchRepository = accountBatchRepository;
+        this.accountCache = accountCache;
+        this.amountCalculator = amountCalculator;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.stripedAccountLocks = stripedAccountLocks;
+        this.bulkhead = bulkhead;
+        this.hotAccountCredits = hotAccountCredits;
+        this.ledgerService = ledgerService;
+        this.idempotencyService = idempotencyService;
+        this.tracer = tracer;
+        this.preValidator = preValidator;
+        this.concurrencyMode = concurrencyMode;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBulkSize = maxBulkSize;
+        this.meterRegistry = meterRegistry;
+        this.lockWaitTimer = Timer.builder("transfer.lock.wait").register(meterRegistry);
+        this.balanceUpdateTimer = Timer.builder("transfer.balance.update").register(meterRegistry);
+        this.transferCommitTimer = Timer.builder("transfer.commit").tag("type", "single").register(meterRegistry);
+        this.batchCommitTimer = Timer.builder("transfer.commit").tag("type", "batch").register(meterRegistry);
+        this.rebuildCommitTimer = Timer.builder("transfer.commit").tag("type", "rebuild").register(meterRegistry);
+        this.insufficientFundsCounter = Counter.builder("transfer.failures").tag("reason", "insufficient_funds")
+                .register(meterRegistry);
+        this.accountNotFoundCounter = Counter.builder("transfer.failures").tag("reason", "account_not_found")
+                .register(meterRegistry);
+        Gauge.builder("transfer.in.flight", inFlightTransfers, AtomicInteger::get)
+                .description("Transfer attempts currently waiting for or holding account locks")
+                .register(meterRegistry);
     }
 
     @Transactional(readOnly = true)
     public Account findByAccountNumber(String accountNumber) {
         return accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber));
+    }
+
+    /**
+     * Returns up to {@code limit} accounts with an id greater than {@code afterId}, in id order.
+     */
+    @Transactional(readOnly = true)
+    public List<Account> listAccounts(long afterId, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        return accountRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
     }
 
     @Transactional
     public Account createAccount(Account account) {
-        return accountRepository.save(account);
+        Account created = accountRepository.save(account);
+        ledgerService.recordOpening(created);
+        preValidator.accountCreated(created.getAccountNumber());
+        return created;
     }
 
-    @Retryable(
-            value = {CannotAcquireLockException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 500)
-    )
+    /**
+     * Creates accounts, with their opening ledger entries, in one transaction. Account ids come
+     * from a pooled sequence, so the rows go out in JDBC batches; the persistence context is flushed
+     * and cleared every {@value #BULK_FLUSH_INTERVAL} accounts so it stays small however many are passed.
+     *
+     * @return the number of accounts created
+     * @throws IllegalArgumentException if there are no accounts, too many, or an invalid one
+     */
     @Transactional
-    public void transferMoney(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount, String currencyCode) {
-        // Validate input
+    public int createAccounts(List<Account> accounts) {
+        if (accounts.isEmpty()) {
+            throw new IllegalArgumentException("Bulk request must contain at least one account");
+        }
+        if (accounts.size() > maxBulkSize) {
+            throw new IllegalArgumentException("Bulk request must not contain more than " + maxBulkSize + " accounts");
+        }
+        for (int i = 0; i < accounts.size(); i++) {
+            Set<ConstraintViolation<Account>> violations = validator.validate(accounts.get(i));
+            if (!violations.isEmpty()) {
+                ConstraintViolation<Account> violation = violations.iterator().next();
+                throw new IllegalArgumentException("Account " + i + ": " + violation.getPropertyPath() + " "
+                        + violation.getMessage());
+            }
+        }
+
+        // Send each table's rows of a flush in as few batches as possible
+        entityManager.unwrap(Session.class).setJdbcBatchSize(BULK_FLUSH_INTERVAL);
+        List<String> accountNumbers = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            entityManager.persist(account);
+            ledgerService.recordOpening(account);
+            accountNumbers.add(account.getAccountNumber());
+            if ((i + 1) % BULK_FLUSH_INTERVAL == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        preValidator.accountsCreated(accountNumbers);
+        return accounts.size();
+    }
+
+    @Retryable(interceptor = TransferRetryInterceptor.BEAN_NAME)
+    public TransferResult transferMoney(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount, String currencyCode) {
+        return transferMoney(sourceAccountNumber, destinationAccountNumber, amount, currencyCode, null);
+    }
+
+    /**
+     * Transfers money at most once per {@code idempotencyKey}: a repeated request with the same key
+     * returns the result of the first one without taking any lock. A {@code null} key disables the check.
+     */
+    @Retryable(interceptor = TransferRetryInterceptor.BEAN_NAME)
+    public TransferResult transferMoney(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                                        String currencyCode, String idempotencyKey) {
+        // Requests that cannot succeed are turned away before any connection is borrowed
+        preValidator.validate(sourceAccountNumber, destinationAccountNumber, amount, currencyCode);
+
+        if (idempotencyKey != null) {
+            TransferResult replayed = findReplay(idempotencyKey, sourceAccountNumber, destinationAccountNumber, amount, currencyCode);
+            if (replayed != null) {
+                return replayed;
+            }
+        }
+
+        int attempt = currentAttempt();
+        TransferTracer.Sample sample = tracer.begin();
+
         logger.info("Starting money transfer: {} {} from account {} to account {}",
                 amount, currencyCode, sourceAccountNumber, destinationAccountNumber);
 
-                validateInput(sourceAccountNumber, destinationAccountNumber, amount);
-        System.out.println("Transfering " + currencyCode + amount + " from " + sourceAccountNumber + " to " + destinationAccountNumber);
+        // A credit to a hot account is deferred and never touches its row, so only the source is locked
+        List<String> accountNumbers = List.of(sourceAccountNumber, destinationAccountNumber);
+        List<String> lockedAccountNumbers = hotAccountCredits.isHot(destinationAccountNumber)
+                ? List.of(sourceAccountNumber)
+                : accountNumbers;
 
-        // Acquire locks in a consistent order
-        Account sourceAccount = accountRepository.findByAccountNumberWithLock(sourceAccountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + sourceAccountNumber));
+        inFlightTransfers.incrementAndGet();
+        String outcome = "error";
+        Long transferId = null;
+        try {
+            // Debiting a hot account settles its pending credits first, which needs the row locked
+            TransferResult result = concurrencyMode == ConcurrencyMode.ATOMIC && !hotAccountCredits.isHot(sourceAccountNumber)
+                    ? bulkhead.call(() -> timedTransaction(transferCommitTimer, () -> applyAtomicTransfer(
+                            sourceAccountNumber, destinationAccountNumber, amount, currencyCode, idempotencyKey, attempt, sample)))
+                    : inLockedTransaction(transferCommitTimer, lockedAccountNumbers, accountNumbers,
+                            (accounts, lockWaitNanos) -> applyTransfer(accounts, sourceAccountNumber, destinationAccountNumber,
+                                    amount, currencyCode, idempotencyKey, lockWaitNanos, attempt, sample));
+            recordAmount(amount, currencyCode);
+            outcome = "success";
+            transferId = result.transferId();
+            return result;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key committed first and this transfer was rolled back
+            if (idempotencyKey != null) {
+                TransferResult replayed = findReplay(idempotencyKey, sourceAccountNumber, destinationAccountNumber, amount, currencyCode);
+                if (replayed != null) {
+                    outcome = "replayed";
+                    transferId = replayed.transferId();
+                    return replayed;
+                }
+            }
+            throw e;
+        } catch (InsufficientFundsException e) {
+            outcome = "insufficient_funds";
+            throw e;
+        } catch (CannotAcquireLockException e) {
+            outcome = "lock_timeout";
+            throw e;
+        } catch (TransferRejectedException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            inFlightTransfers.decrementAndGet();
+            tracer.end(sample, outcome, transferId, sourceAccountNumber, destinationAccountNumber, amount, currencyCode,
+                    attempt);
+        }
+    }
 
-        Account destinationAccount = accountRepository.findByAccountNumberWithLock(destinationAccountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + destinationAccountNumber));
+    private void recordAmount(BigDecimal amount, String currencyCode) {
+        // Only called once the transfer committed, so the currency is one the rate table knows
+        amountSummaries.computeIfAbsent(currencyCode, code -> DistributionSummary.builder("transfer.amount")
+                        .description("Amount of completed transfers, in the transfer currency")
+                        .tag("currency", code)
+                        .register(meterRegistry))
+                .record(amount.doubleValue());
+    }
+
+    private TransferResult findReplay(String idempotencyKey, String sourceAccountNumber, String destinationAccountNumber,
+                                      BigDecimal amount, String currencyCode) {
+        Long transferId = idempotencyService.findTransferId(idempotencyKey, sourceAccountNumber, destinationAccountNumber,
+                amount, currencyCode);
+        if (transferId == null) {
+            return null;
+        }
+        logger.info("Transfer {} already completed for idempotency key {}", transferId, idempotencyKey);
+        return TransferResult.replayed(transferId, sourceAccountNumber, destinationAccountNumber);
+    }
+
+    private TransferResult applyTransfer(List<Account> accounts, String sourceAccountNumber, String destinationAccountNumber,
+                                         BigDecimal amount, String currencyCode, String idempotencyKey,
+                                         long lockWaitNanos, int attempt, TransferTracer.Sample sample) {
+        lockWaitTimer.record(lockWaitNanos, TimeUnit.NANOSECONDS);
+        long updateStart = System.nanoTime();
+
+        Account sourceAccount = findLocked(accounts, sourceAccountNumber);
+        Account destinationAccount = findLocked(accounts, destinationAccountNumber);
 
         // Perform the transfer
-        withdraw(sourceAccount, amount, currencyCode);
-        deposit(destinationAccount, amount, currencyCode);
+        long amountUnits = Money.toUnits(amount);
+        long debited = withdraw(sourceAccount, amountUnits, currencyCode);
+        long credited = deposit(destinationAccount, amountUnits, currencyCode);
+        Transfer transfer = ledgerService.recordTransfer(sourceAccountNumber, destinationAccountNumber, amount, currencyCode,
+                debited, credited);
+        if (idempotencyKey != null) {
+            idempotencyService.record(idempotencyKey, transfer.getId(), sourceAccountNumber, destinationAccountNumber,
+                    amount, currencyCode);
+        }
+        long updateNanos = System.nanoTime() - updateStart;
+        balanceUpdateTimer.record(updateNanos, TimeUnit.NANOSECONDS);
+        if (sample != null) {
+            sample.recordWork(lockWaitNanos, updateNanos);
+        }
+
+        logger.debug("Transfer from account {} to account {} acquired locks in {} us after {} attempt(s)",
+                sourceAccountNumber, destinationAccountNumber, TimeUnit.NANOSECONDS.toMicros(lockWaitNanos), attempt);
+        return new TransferResult(transfer.getId(), sourceAccountNumber, destinationAccountNumber, lockWaitNanos, attempt, false);
     }
 
-    private void validateInput(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount)
-    {
-        if (sourceAccountNumber.equals(destinationAccountNumber)) {
-            throw new IllegalArgumentException("Source and destination accounts cannot be the same");
+    /**
+     * Applies a transfer with two in-place {@code UPDATE}s and no account entity loaded. The
+     * currencies come from {@link AccountCache#findCurrencyCode}, since an account's currency never changes. The rows
+     * are updated in accountNumber order, the order the locking modes lock them in, so transfers in
+     * opposite directions cannot deadlock; a debit or credit that matches no row rolls back the update made
+     * before it.
+     */
+    private TransferResult applyAtomicTransfer(String sourceAccountNumber, String destinationAccountNumber,
+                                               BigDecimal amount, String currencyCode, String idempotencyKey,
+                                               int attempt, TransferTracer.Sample sample) {
+        long updateStart = System.nanoTime();
+
+        String sourceCurrencyCode = findCurrencyCode(sourceAccountNumber);
+        String destinationCurrencyCode = findCurrencyCode(destinationAccountNumber);
+
+        long amountUnits = Money.toUnits(amount);
+        long debited = amountCalculator.computeDebitAmount(sourceCurrencyCode, amountUnits, currencyCode);
+        long credited = amountCalculator.computeCreditAmount(destinationCurrencyCode, amountUnits, currencyCode);
+        boolean debitFirst = sourceAccountNumber.compareTo(destinationAccountNumber) < 0;
+        if (debitFirst) {
+            debitAtomically(sourceAccountNumber, debited);
+        }
+        if (hotAccountCredits.isHot(destinationAccountNumber)) {
+            hotAccountCredits.defer(destinationAccountNumber, credited);
+        } else {
+            creditAtomically(destinationAccountNumber, credited);
+        }
+        if (!debitFirst) {
+            debitAtomically(sourceAccountNumber, debited);
         }
 
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Transfer amount must be positive");
+        Transfer transfer = ledgerService.recordTransfer(sourceAccountNumber, destinationAccountNumber, amount, currencyCode,
+                debited, credited);
+        if (idempotencyKey != null) {
+            idempotencyService.record(idempotencyKey, transfer.getId(), sourceAccountNumber, destinationAccountNumber,
+                    amount, currencyCode);
+        }
+        long updateNanos = System.nanoTime() - updateStart;
+        balanceUpdateTimer.record(updateNanos, TimeUnit.NANOSECONDS);
+        if (sample != null) {
+            sample.recordWork(0L, updateNanos);
+        }
+
+        logger.debug("Transfer from account {} to account {} applied in place after {} attempt(s)",
+                sourceAccountNumber, destinationAccountNumber, attempt);
+        return new TransferResult(transfer.getId(), sourceAccountNumber, destinationAccountNumber, 0L, attempt, false);
+    }
+
+    private void creditAtomically(String accountNumber, long amount) {
+        // The account is only known to exist from the cache; a credit that matches no row must not
+        // let the debit commit on its own
+        if (accountRepository.credit(accountNumber, Money.toBigDecimal(amount)) == 0) {
+            accountNotFoundCounter.increment();
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
+        }
+        accountCache.evictAfterCommit(accountNumber);
+    }
+
+    private void debitAtomically(String accountNumber, long amount) {
+        if (accountRepository.debitIfSufficient(accountNumber, Money.toBigDecimal(amount)) == 0) {
+            insufficientFundsCounter.increment();
+            throw new InsufficientFundsException("Insufficient funds in account: " + accountNumber);
+        }
+        accountCache.evictAfterCommit(accountNumber);
+    }
+
+    private String findCurrencyCode(String accountNumber) {
+        String currencyCode = accountCache.findCurrencyCode(accountNumber);
+        if (currencyCode == null) {
+            accountNotFoundCounter.increment();
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
         }
+        return currencyCode;
     }
 
-    public void withdraw(Account account, final BigDecimal withdrawAmount, final String currencyCode)
+    /**
+     * Applies a batch of transfers in one transaction. All involved accounts are locked up front
+     * in accountNumber order; items are then applied in submission order against in-memory running
+     * balances, and only the net balance of each account is written back, with one JDBC batch.
+     * An item that fails (validation, unknown account, insufficient funds) is reported in its
+     * result and does not affect the other items.
+     */
+    @Retryable(interceptor = TransferRetryInterceptor.BEAN_NAME)
+    public List<BatchTransferResult> transferMoneyBatch(List<TransferMoneyDto> transfers) {
+        if (transfers.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transfer");
+        }
+        if (transfers.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must not contain more than " + maxBatchSize + " transfers");
+        }
+        logger.info("Starting batch of {} transfers", transfers.size());
+
+        Set<String> accountNumbers = new TreeSet<>();
+        for (TransferMoneyDto transfer : transfers) {
+            if (transfer.getSourceAccountNumber() != null) {
+                accountNumbers.add(transfer.getSourceAccountNumber());
+            }
+            if (transfer.getDestinationAccountNumber() != null) {
+                accountNumbers.add(transfer.getDestinationAccountNumber());
+            }
+        }
+
+        return inLockedTransaction(batchCommitTimer, accountNumbers, accountNumbers, (accounts, lockWaitNanos) ->
+                applyBatch(transfers, accounts, lockWaitNanos));
+    }
+
+    private List<BatchTransferResult> applyBatch(List<TransferMoneyDto> transfers, List<Account> accounts, long lockWaitNanos) {
+        lockWaitTimer.record(lockWaitNanos, TimeUnit.NANOSECONDS);
+
+        Map<String, Account> accountsByNumber = new HashMap<>(accounts.size() * 2);
+        Map<String, Long> balances = new HashMap<>(accounts.size() * 2);
+        Set<String> settledAccountNumbers = new HashSet<>();
+        for (Account account : accounts) {
+            accountsByNumber.put(account.getAccountNumber(), account);
+            if (hotAccountCredits.isHot(account.getAccountNumber()) && hotAccountCredits.settle(account)) {
+                settledAccountNumbers.add(account.getAccountNumber());
+            }
+            balances.put(account.getAccountNumber(), account.getBalanceUnits());
+        }
+
+        List<BatchTransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferMoneyDto transfer = transfers.get(i);
+            try {
+                validateBatchItem(transfer);
+                Account sourceAccount = accountsByNumber.get(transfer.getSourceAccountNumber());
+                if (sourceAccount == null) {
+                    accountNotFoundCounter.increment();
+                    throw new AccountNotFoundException("Account not found: " + transfer.getSourceAccountNumber());
+                }
+                Account destinationAccount = accountsByNumber.get(transfer.getDestinationAccountNumber());
+                if (destinationAccount == null) {
+                    accountNotFoundCounter.increment();
+                    throw new AccountNotFoundException("Account not found: " + transfer.getDestinationAccountNumber());
+                }
+
+                long amountUnits = Money.toUnits(transfer.getAmount());
+                long debit = amountCalculator.computeDebitAmount(sourceAccount.getCurrencyCode(),
+                        amountUnits, transfer.getCurrencyCode());
+                long credit = amountCalculator.computeCreditAmount(destinationAccount.getCurrencyCode(),
+                        amountUnits, transfer.getCurrencyCode());
+                long sourceBalance = balances.get(sourceAccount.getAccountNumber());
+                if (sourceBalance < debit) {
+                    insufficientFundsCounter.increment();
+                    throw new InsufficientFundsException("Insufficient funds in account: " + sourceAccount.getAccountNumber());
+                }
+
+                balances.put(sourceAccount.getAccountNumber(), Money.subtract(sourceBalance, debit));
+                balances.merge(destinationAccount.getAccountNumber(), credit, Money::add);
+                ledgerService.recordTransfer(sourceAccount.getAccountNumber(), destinationAccount.getAccountNumber(),
+                        transfer.getAmount(), transfer.getCurrencyCode(), debit, credit);
+                results.add(BatchTransferResult.success(i));
+            } catch (RuntimeException e) {
+                results.add(BatchTransferResult.error(i, e.getMessage()));
+            }
+        }
+
+        List<AccountBatchRepository.BalanceUpdate> updates = new ArrayList<>();
+        for (Account account : accounts) {
+            long balance = balances.get(account.getAccountNumber());
+            if (balance != account.getBalanceUnits() || settledAccountNumbers.contains(account.getAccountNumber())) {
+                updates.add(new AccountBatchRepository.BalanceUpdate(account.getId(), balance, account.getVersion()));
+                // The row is written behind Hibernate's back, so the managed copy is now stale
+                entityManager.detach(account);
+                accountCache.updateAfterCommit(new AccountSnapshot(account.getId(), account.getAccountNumber(),
+                        account.getOwnerName(), Money.toBigDecimal(balance), account.getCurrencyCode(),
+                        account.getVersion() + 1));
+            }
+        }
+        if (!updates.isEmpty()) {
+            accountBatchRepository.updateBalances(updates);
+        }
+        return results;
+    }
+
+    /**
+     * Replaces the stored balance of an account with its ledger projection.
+     */
+    public Account rebuildBalance(String accountNumber) {
+        List<String> accountNumbers = List.of(accountNumber);
+        return inLockedTransaction(rebuildCommitTimer, accountNumbers, accountNumbers, (accounts, lockWaitNanos) -> {
+            Account account = findLocked(accounts, accountNumber);
+            // Pending credits (of a hot account, or handed off by an async transfer) are already part of the ledger
+            hotAccountCredits.settle(account);
+            account.setBalance(ledgerService.projectBalance(accountNumber));
+            return account;
+        });
+    }
+
+    /**
+     * Runs {@code work} in a transaction, with {@code lockedAccountNumbers} locked the way the
+     * concurrency mode prescribes, passing it those of {@code accountNumbers} that exist.
+     * Accounts that are loaded but not in {@code lockedAccountNumbers} must only be read.
+     * The time from the end of {@code work} to the end of the commit is recorded in {@code commitTimer}.
+     */
+    private <T> T inLockedTransaction(Timer commitTimer, Collection<String> lockedAccountNumbers,
+                                      Collection<String> accountNumbers, LockedAccountsWork<T> work) {
+        // Wait for a bulkhead permit before taking any lock or connection
+        return bulkhead.call(() -> timedLockedTransaction(commitTimer, lockedAccountNumbers, accountNumbers, work));
+    }
+
+    /**
+     * Runs {@code work} in a transaction without locking anything up front, recording the time
+     * from the end of {@code work} to the end of the commit in {@code commitTimer}.
+     */
+    private <T> T timedTransaction(Timer commitTimer, Supplier<T> work) {
+        long[] workEnd = new long[1];
+        T result = transactionTemplate.execute(status -> {
+            T workResult = work.get();
+            workEnd[0] = System.nanoTime();
+            return workResult;
+        });
+        commitTimer.record(System.nanoTime() - workEnd[0], TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private <T> T timedLockedTransaction(Timer commitTimer, Collection<String> lockedAccountNumbers,
+                                         Collection<String> accountNumbers, LockedAccountsWork<T> work) {
+        long[] workEnd = new long[1];
+        LockedAccountsWork<T> timedWork = (accounts, lockWaitNanos) -> {
+            T result = work.apply(accounts, lockWaitNanos);
+            workEnd[0] = System.nanoTime();
+            return result;
+        };
+
+        T result;
+        if (concurrencyMode == ConcurrencyMode.STRIPED) {
+            // Hold the in-JVM locks until the transaction has committed; the rows themselves are
+            // read without database locks and the @Version check guards against any other writer
+            long lockStart = System.nanoTime();
+            try (StripedAccountLocks.Locked ignored = stripedAccountLocks.lock(lockedAccountNumbers.toArray(new String[0]))) {
+                long lockWaitNanos = System.nanoTime() - lockStart;
+                result = transactionTemplate.execute(status ->
+                        timedWork.apply(accountRepository.findAllByAccountNumberIn(accountNumbers), lockWaitNanos));
+            }
+        } else {
+            result = lockAndExecute(lockedAccountNumbers, accountNumbers, timedWork);
+        }
+        commitTimer.record(System.nanoTime() - workEnd[0], TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private <T> T lockAndExecute(Collection<String> lockedAccountNumbers, Collection<String> accountNumbers,
+                                 LockedAccountsWork<T> work) {
+        return transactionTemplate.execute(status -> {
+            // Acquire the locks in one statement, in a consistent (accountNumber) order
+            long lockStart = System.nanoTime();
+            List<Account> accounts = new ArrayList<>(accountRepository.findAllByAccountNumberInWithLock(lockedAccountNumbers));
+            long lockWaitNanos = System.nanoTime() - lockStart;
+            for (String accountNumber : accountNumbers) {
+                if (!lockedAccountNumbers.contains(accountNumber)) {
+                    accountRepository.findByAccountNumber(accountNumber).ifPresent(accounts::add);
+                }
+            }
+            return work.apply(accounts, lockWaitNanos);
+        });
+    }
+
+    @FunctionalInterface
+    private interface LockedAccountsWork<T> {
+        T apply(List<Account> accounts, long lockWaitNanos);
+    }
+
+    private void validateBatchItem(TransferMoneyDto transfer) {
+        Set<ConstraintViolation<TransferMoneyDto>> violations = validator.validate(transfer);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+        preValidator.validateRequest(transfer.getSourceAccountNumber(), transfer.getDestinationAccountNumber(),
+                transfer.getAmount());
+    }
+
+    private Account findLocked(List<Account> lockedAccounts, String accountNumber) {
+        for (Account account : lockedAccounts) {
+            if (account.getAccountNumber().equals(accountNumber)) {
+                return account;
+            }
+        }
+        accountNotFoundCounter.increment();
+        throw new AccountNotFoundException("Account not found: " + accountNumber);
+    }
+
+    private int currentAttempt() {
+        RetryContext retryContext = RetrySynchronizationManager.getContext();
+        return retryContext == null ? 1 : retryContext.getRetryCount() + 1;
+    }
+
+    /**
+     * Debits a managed account; the new balance is written when the transaction flushes.
+     *
+     * @return the amount taken from the account, in its currency, fee included, in {@link Money} units
+     */
+    public long withdraw(Account account, final long withdrawAmount, final String currencyCode)
     {
-        BigDecimal amount = withdrawAmount;
-        if (!account.getCurrencyCode().equals(currencyCode))
-        {
-            amount = currencyRateService.computeExchangeRate(currencyCode, account.getCurrencyCode(), amount);
+        long amount = amountCalculator.computeDebitAmount(account.getCurrencyCode(), withdrawAmount, currencyCode);
+
+        if (hotAccountCredits.isHot(account.getAccountNumber())) {
+            // Deferred credits count towards the funds available for this debit
+            hotAccountCredits.settle(account);
         }
-        BigDecimal transactionFee = computeTransactionFee(amount);
-        amount = amount.add(transactionFee);
 
-        if (account.getBalance().compareTo(amount) < 0) {
+        if (account.getBalanceUnits() < amount) {
+            insufficientFundsCounter.increment();
             throw new InsufficientFundsException("Insufficient funds in account: " + account.getAccountNumber());
         }
 
-        account.setBalance(account.getBalance().subtract(amount));
+        account.setBalanceUnits(Money.subtract(account.getBalanceUnits(), amount));
         logger.info("Withdraw money: {} {} from account {}",
-                amount, account.getCurrencyCode(), account.getOwnerName());
-        accountRepository.save(account);
+                Money.toBigDecimal(amount), account.getCurrencyCode(), account.getOwnerName());
+        return amount;
     }
 
-    public void deposit(Account account, BigDecimal depositAmount, String currencyCode)
+    /**
+     * Credits a managed account; the new balance is written when the transaction flushes.
+     *
+     * @return the amount added to the account, in its currency, in {@link Money} units
+     */
+    public long deposit(Account account, long depositAmount, String currencyCode)
     {
-        BigDecimal amount = depositAmount;
-        if (!account.getCurrencyCode().equals(currencyCode))
-        {
-            amount = currencyRateService.computeExchangeRate(currencyCode, account.getCurrencyCode(), depositAmount);
+        long amount = amountCalculator.computeCreditAmount(account.getCurrencyCode(), depositAmount, currencyCode);
+
+        if (hotAccountCredits.isHot(account.getAccountNumber())) {
+            hotAccountCredits.defer(account.getAccountNumber(), amount);
+            logger.info("Deferred deposit: {} {} to account {}",
+                    Money.toBigDecimal(amount), account.getCurrencyCode(), account.getOwnerName());
+            return amount;
         }
 
-        account.setBalance(account.getBalance().add(amount));
+        account.setBalanceUnits(Money.add(account.getBalanceUnits(), amount));
         logger.info("Deposit money: {} {} to account {}",
-                amount, account.getCurrencyCode(), account.getOwnerName());
-        accountRepository.save(account);
-    }
-
-    private BigDecimal computeTransactionFee(BigDecimal amount) {
-        return amount.multiply(TRANSACTION_FEE).setScale(4, RoundingMode.HALF_UP);
+                Money.toBigDecimal(amount), account.getCurrencyCode(), account.getOwnerName());
+        return amount;
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.jpmorgan.moneytransfer.service;
+
+/**
+ * How {@link AccountService} serializes concurrent transfers touching the same account.
+ * Selected with the {@code moneytransfer.concurrency.mode} property.
+ */
+public enum ConcurrencyMode {
+
+    /**
+     * Accounts are locked with {@code SELECT ... FOR UPDATE} inside the transfer transaction.
+     * Safe with any number of application nodes.
+     */
+    DATABASE,
+
+    /**
+     * Accounts are locked on an in-JVM striped lock table held around the whole transaction;
+     * rows are read without database locks and the {@code @Version} check catches any writer
+     * that bypassed the lock table. Only safe for single-node deployments.
+     */
+    STRIPED,
+
+    /**
+     * Single transfers never load the accounts: the debit is one conditional {@code UPDATE} that
+     * only matches while the balance covers the amount, and the credit a plain increment, so each
+     * row is locked for the length of its statement rather than the whole transfer. Batches,
+     * rebuilds and transfers out of hot accounts still lock the way {@link #DATABASE} does.
+     */
+    ATOMIC
+}
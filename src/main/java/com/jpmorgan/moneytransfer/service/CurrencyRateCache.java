@@ -0,0 +1,236 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.jpmorgan.moneytransfer.repository.CurrencyRateRepository;
+import com.jpmorgan.moneytransfer.repository.model.CurrencyRate;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable in-memory matrix of all currency rates, indexed by small integer currency ids.
+ * <p>
+ * The matrix is loaded once the application is ready and rebuilt on a fixed interval. A pair
+ * without a rate of its own is triangulated through the pivot currency
+ * ({@code moneytransfer.fx-rates.pivot}) when both legs have one, so that, for example, JPN to CNY
+ * is quoted as JPN to USD times USD to CNY, rounded to the scale of a stored rate. A change to
+ * one rate only recomputes the entries triangulated through it. The current matrix is never
+ * mutated: a copy is built off to the side and published with a single volatile write, so lookups
+ * on the transfer path are lock-free, never touch the database and, once the currency codes are
+ * resolved to ids, are one array access.
+ */
+@Component
+public class CurrencyRateCache {
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyRateCache.class);
+
+    private final CurrencyRateRepository currencyRateRepository;
+    private final String pivotCurrency;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer refreshTimer;
+
+    private volatile RateMatrix matrix = RateMatrix.EMPTY;
+
+    @Autowired
+    public CurrencyRateCache(CurrencyRateRepository currencyRateRepository,
+                             @Value("${moneytransfer.fx-rates.pivot:USD}") String pivotCurrency,
+                             MeterRegistry meterRegistry) {
+        this.currencyRateRepository = currencyRateRepository;
+        this.pivotCurrency = pivotCurrency;
+        this.hits = Counter.builder("fx.rate.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("fx.rate.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.refreshTimer = Timer.builder("fx.rate.cache.refresh").register(meterRegistry);
+        Gauge.builder("fx.rate.cache.size", this, cache -> cache.matrix.count(true))
+                .tag("source", "direct")
+                .register(meterRegistry);
+        Gauge.builder("fx.rate.cache.size", this, cache -> cache.matrix.count(false))
+                .tag("source", "triangulated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the rate for the given pair in {@link Money} units, or {@code null} if the pair
+     * has neither a rate of its own nor one through the pivot currency.
+     */
+    public Long find(String fromCurrency, String toCurrency) {
+        RateMatrix current = matrix;
+        long rate = current.rate(current.idOf(fromCurrency), current.idOf(toCurrency));
+        if (rate == RateMatrix.NO_RATE) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return rate;
+    }
+
+    /**
+     * Whether the currency appears in any rate, that is whether a transfer in it can be converted at all.
+     */
+    public boolean isKnownCurrency(String currency) {
+        return matrix.idOf(currency) != RateMatrix.UNKNOWN;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${moneytransfer.fx-rates.refresh-interval:PT5M}",
+            fixedDelayString = "${moneytransfer.fx-rates.refresh-interval:PT5M}")
+    public synchronized void refresh() {
+        refreshTimer.record(() -> {
+            List<CurrencyRate> currencyRates = currencyRateRepository.findAll();
+            Set<String> currencies = new TreeSet<>();
+            for (CurrencyRate currencyRate : currencyRates) {
+                currencies.add(currencyRate.getFromCurrency());
+                currencies.add(currencyRate.getToCurrency());
+            }
+            RateMatrix rebuilt = new RateMatrix(currencies.toArray(new String[0]));
+            for (CurrencyRate currencyRate : currencyRates) {
+                rebuilt.setDirect(rebuilt.idOf(currencyRate.getFromCurrency()), rebuilt.idOf(currencyRate.getToCurrency()),
+                        Money.toUnits(currencyRate.getRate()));
+            }
+            rebuilt.triangulateAll(rebuilt.idOf(pivotCurrency));
+            matrix = rebuilt;
+        });
+        logger.debug("Loaded {} currency rates, {} more triangulated", matrix.count(true), matrix.count(false));
+    }
+
+    /**
+     * Publishes a changed rate without reloading the others. Only the pairs triangulated through
+     * the changed rate are recomputed.
+     */
+    public synchronized void update(String fromCurrency, String toCurrency, long rateUnits) {
+        RateMatrix updated = matrix.withCurrencies(fromCurrency, toCurrency);
+        int from = updated.idOf(fromCurrency);
+        int to = updated.idOf(toCurrency);
+        updated.setDirect(from, to, rateUnits);
+
+        int pivot = updated.idOf(pivotCurrency);
+        if (pivot != RateMatrix.UNKNOWN) {
+            if (to == pivot) {
+                // A leg into the pivot: every pair out of this currency may be quoted through it
+                for (int other = 0; other < updated.size(); other++) {
+                    updated.triangulate(from, other, pivot);
+                }
+            }
+            if (from == pivot) {
+                // A leg out of the pivot: every pair into this currency may be quoted through it
+                for (int other = 0; other < updated.size(); other++) {
+                    updated.triangulate(other, to, pivot);
+                }
+            }
+        }
+        matrix = updated;
+    }
+
+    /**
+     * Rates of all pairs in one flat array, {@code rates[from * size + to]}.
+     */
+    private static final class RateMatrix {
+        static final int UNKNOWN = -1;
+        static final long NO_RATE = 0L;
+        static final RateMatrix EMPTY = new RateMatrix(new String[0]);
+
+        private final String[] currencies;
+        private final Map<String, Integer> ids;
+        private final long[] rates;
+        private final boolean[] direct;
+
+        RateMatrix(String[] currencies) {
+            this.currencies = currencies;
+            this.ids = new HashMap<>(currencies.length * 2);
+            for (int id = 0; id < currencies.length; id++) {
+                ids.put(currencies[id], id);
+            }
+            this.rates = new long[currencies.length * currencies.length];
+            this.direct = new boolean[rates.length];
+        }
+
+        int size() {
+            return currencies.length;
+        }
+
+        int idOf(String currency) {
+            Integer id = ids.get(currency);
+            return id == null ? UNKNOWN : id;
+        }
+
+        long rate(int from, int to) {
+            if (from == UNKNOWN || to == UNKNOWN) {
+                return NO_RATE;
+            }
+            return rates[from * currencies.length + to];
+        }
+
+        void setDirect(int from, int to, long rateUnits) {
+            int index = from * currencies.length + to;
+            rates[index] = rateUnits;
+            direct[index] = true;
+        }
+
+        /**
+         * Fills every pair without a rate of its own through the pivot.
+         */
+        void triangulateAll(int pivot) {
+            if (pivot == UNKNOWN) {
+                return;
+            }
+            for (int from = 0; from < currencies.length; from++) {
+                for (int to = 0; to < currencies.length; to++) {
+                    triangulate(from, to, pivot);
+                }
+            }
+        }
+
+        void triangulate(int from, int to, int pivot) {
+            int index = from * currencies.length + to;
+            if (direct[index] || from == to || from == pivot || to == pivot) {
+                return;
+            }
+            long toPivot = rates[from * currencies.length + pivot];
+            long fromPivot = rates[pivot * currencies.length + to];
+            rates[index] = toPivot == NO_RATE || fromPivot == NO_RATE ? NO_RATE : Money.multiply(toPivot, fromPivot);
+        }
+
+        /**
+         * Returns a mutable copy, with ids for the given currencies if they are new.
+         */
+        RateMatrix withCurrencies(String... added) {
+            Set<String> all = new TreeSet<>(Arrays.asList(currencies));
+            all.addAll(Arrays.asList(added));
+            RateMatrix copy = new RateMatrix(all.toArray(new String[0]));
+            for (int from = 0; from < currencies.length; from++) {
+                for (int to = 0; to < currencies.length; to++) {
+                    int index = from * currencies.length + to;
+                    int copyIndex = copy.idOf(currencies[from]) * copy.currencies.length + copy.idOf(currencies[to]);
+                    copy.rates[copyIndex] = rates[index];
+                    copy.direct[copyIndex] = direct[index];
+                }
+            }
+            return copy;
+        }
+
+        int count(boolean directRates) {
+            int count = 0;
+            for (int index = 0; index < rates.length; index++) {
+                if (rates[index] != NO_RATE && direct[index] == directRates) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.jpmorgan.moneytransfer.service;
 
 import com.jpmorgan.moneytransfer.repository.CurrencyRateRepository;
 import com.jpmorgan.moneytransfer.repository.model.CurrencyRate;
+import com.jpmorgan.moneytransfer.repository.model.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 
@@ -12,10 +15,12 @@ import java.math.BigDecimal;
 public class CurrencyRateService {
 
     private final CurrencyRateRepository currencyRateRepository;
+    private final CurrencyRateCache currencyRateCache;
 
     @Autowired
-    public CurrencyRateService(CurrencyRateRepository currencyRateRepository) {
+    public CurrencyRateService(CurrencyRateRepository currencyRateRepository, CurrencyRateCache currencyRateCache) {
         this.currencyRateRepository = currencyRateRepository;
+        this.currencyRateCache = currencyRateCache;
     }
 
     @Transactional(readOnly = true)
@@ -24,8 +29,32 @@ public class CurrencyRateService {
                 .orElseThrow(() -> new RuntimeException("Currency Rate from "+ fromCurrency + " to " + toCurrency + " not found"));
     }
 
-    public BigDecimal computeExchangeRate(String fromCurrency, String toCurrency, BigDecimal amount) {
-        CurrencyRate currencyRate = findCurrencyRate(fromCurrency, toCurrency);
-        return amount.multiply(currencyRate.getRate());
+    @Transactional
+    public CurrencyRate saveCurrencyRate(String fromCurrency, String toCurrency, BigDecimal rate) {
+        CurrencyRate currencyRate = currencyRateRepository.findByCurrencyRate(fromCurrency, toCurrency)
+                .orElseGet(() -> new CurrencyRate(fromCurrency, toCurrency, rate));
+        currencyRate.setRate(rate);
+        CurrencyRate saved = currencyRateRepository.save(currencyRate);
+
+        // Publish the new rate only once the change is visible to other transactions
+        long rateUnits = Money.toUnits(rate);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                currencyRateCache.update(fromCurrency, toCurrency, rateUnits);
+            }
+        });
+        return saved;
+    }
+
+    /**
+     * Converts an amount in {@link Money} units, rounding the result to units.
+     */
+    public long convert(String fromCurrency, String toCurrency, long amountUnits) {
+        Long rateUnits = currencyRateCache.find(fromCurrency, toCurrency);
+        if (rateUnits == null) {
+            throw new RuntimeException("Currency Rate from "+ fromCurrency + " to " + toCurrency + " not found");
+        }
+        return Money.multiply(amountUnits, rateUnits);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jpmorgan.moneytransfer.dto.AccountResponse;
+import com.jpmorgan.moneytransfer.dto.StatementLine;
+import com.jpmorgan.moneytransfer.repository.ExportRepository;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streaming exports of account balances and statements for reconciliation.
+ * <p>
+ * Rows are encoded and written as they come off the JDBC cursor, inside one read-only transaction,
+ * so memory use does not depend on the number of rows. Writes are buffered and only flushed when
+ * the buffer fills, not per row.
+ */
+@Service
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final String ACCOUNTS_CSV_HEADER = "accountNumber,ownerName,balance,currencyCode";
+    private static final String STATEMENT_CSV_HEADER = "entryId,transferId,entryType,amount,balance,createdAt";
+
+    private final ExportRepository exportRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectWriter jsonWriter;
+
+    @Autowired
+    public ExportService(ExportRepository exportRepository,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper) {
+        this.exportRepository = exportRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes every account, in id order.
+     */
+    public void exportAccounts(ExportFormat format, OutputStream out) throws IOException {
+        export(format, out, ACCOUNTS_CSV_HEADER,
+                (AccountResponse account) -> new Object[]{account.accountNumber(), account.ownerName(),
+                        account.balance(), account.currencyCode()},
+                exportRepository::forEachAccount);
+    }
+
+    /**
+     * Writes every ledger entry of an account, oldest first, with the running balance after each.
+     */
+    public void exportStatement(String accountNumber, ExportFormat format, OutputStream out) throws IOException {
+        export(format, out, STATEMENT_CSV_HEADER,
+                (StatementLine line) -> new Object[]{line.entryId(), line.transferId(), line.entryType(),
+                        line.amount(), line.balance(), line.createdAt()},
+                action -> {
+                    long[] balance = {0L};
+                    exportRepository.forEachLedgerEntry(accountNumber, entry -> {
+                        balance[0] = Money.add(balance[0], Money.toUnits(entry.amount()));
+                        action.accept(new StatementLine(entry.id(), entry.transferId(), entry.entryType(),
+                                entry.amount(), Money.toBigDecimal(balance[0]), entry.createdAt()));
+                    });
+                });
+    }
+
+    private <T> void export(ExportFormat format, OutputStream out, String csvHeader, Function<T, Object[]> csvColumns,
+                            Consumer<Consumer<T>> rows) throws IOException {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                exportNdjson(out, rows);
+            } else {
+                exportCsv(out, csvHeader, csvColumns, rows);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> void exportNdjson(OutputStream out, Consumer<Consumer<T>> rows) throws IOException {
+        // The response stream belongs to the caller, so the generator must not close it
+        try (JsonGenerator generator = jsonWriter.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            inReadOnlyTransaction(() -> rows.accept(row -> {
+                try {
+                    jsonWriter.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    private <T> void exportCsv(OutputStream out, String header, Function<T, Object[]> columns,
+                               Consumer<Consumer<T>> rows) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(header);
+        writer.write("\r\n");
+        inReadOnlyTransaction(() -> rows.accept(row -> {
+            try {
+                Object[] values = columns.apply(row);
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvField(values[i]));
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        writer.flush();
+    }
+
+    private void inReadOnlyTransaction(Runnable work) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> work.run());
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String field = value instanceof BigDecimal amount ? amount.toPlainString() : value.toString();
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,58 @@
+package com.jpmorgan.moneytransfer.service;
+
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.BackOffPolicy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exponential backoff with full jitter: before retry {@code n} a caller sleeps for a uniformly
+ * random time between zero and {@code min(maxDelay, initialDelay * multiplier^(n-1))}. Transfers
+ * that collided on the same rows therefore retry at different times instead of in lockstep, and
+ * delays are kept in nanoseconds so that first retries can wait well under a millisecond.
+ */
+final class FullJitterBackOffPolicy implements BackOffPolicy {
+
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final double multiplier;
+
+    FullJitterBackOffPolicy(long initialDelayNanos, long maxDelayNanos, double multiplier) {
+        if (initialDelayNanos < 0 || maxDelayNanos < initialDelayNanos || multiplier < 1) {
+            throw new IllegalArgumentException("Retry backoff must satisfy 0 <= initial-delay <= max-delay and multiplier >= 1");
+        }
+        this.initialDelayNanos = initialDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.multiplier = multiplier;
+    }
+
+    @Override
+    public BackOffContext start(RetryContext context) {
+        return new Attempts();
+    }
+
+    @Override
+    public void backOff(BackOffContext backOffContext) throws BackOffInterruptedException {
+        long delayNanos = ThreadLocalRandom.current().nextLong(ceiling(((Attempts) backOffContext).count++) + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BackOffInterruptedException("Interrupted while backing off before a transfer retry", e);
+        }
+    }
+
+    /**
+     * Longest delay before the retry that follows {@code previousRetries} retries.
+     */
+    long ceiling(int previousRetries) {
+        return (long) Math.min(maxDelayNanos, initialDelayNanos * Math.pow(multiplier, previousRetries));
+    }
+
+    private static final class Attempts implements BackOffContext {
+        private int count;
+    }
+}
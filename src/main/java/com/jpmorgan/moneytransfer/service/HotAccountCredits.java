@@ -0,0 +1,126 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.PendingCreditRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import com.jpmorgan.moneytransfer.repository.model.PendingCredit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Write-combining for high fan-in ("hot") accounts.
+ * <p>
+ * Credits to a hot account are appended to the {@code pending_credits} table instead of locking
+ * and rewriting the account row, so concurrent deposits to the same merchant account do not
+ * serialize on it. A single scheduled writer periodically folds the pending credits of each hot
+ * account into its balance, one locked micro-batch per account.
+ * <p>
+ * A debit from a hot account settles its pending credits first, under the same row lock, so the
+ * funds check always sees every committed credit. Readers of the balance see the settled balance,
+ * which trails the accepted credits by at most one drain interval.
+ */
+@Component
+public class HotAccountCredits {
+    private static final Logger logger = LoggerFactory.getLogger(HotAccountCredits.class);
+
+    private final AccountRepository accountRepository;
+    private final PendingCreditRepository pendingCreditRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedAccountLocks stripedAccountLocks;
+    private final ConcurrencyMode concurrencyMode;
+    private final Set<String> hotAccountNumbers;
+    private final Counter deferredCredits;
+    private final DistributionSummary settledBatchSize;
+
+    @Autowired
+    public HotAccountCredits(AccountRepository accountRepository,
+                             PendingCreditRepository pendingCreditRepository,
+                             TransactionTemplate transactionTemplate,
+                             StripedAccountLocks stripedAccountLocks,
+                             @Value("${moneytransfer.concurrency.mode:database}") ConcurrencyMode concurrencyMode,
+                             @Value("${moneytransfer.hot-accounts.account-numbers:}") Set<String> hotAccountNumbers,
+                             MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.pendingCreditRepository = pendingCreditRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stripedAccountLocks = stripedAccountLocks;
+        this.concurrencyMode = concurrencyMode;
+        this.hotAccountNumbers = Set.copyOf(hotAccountNumbers);
+        this.deferredCredits = Counter.builder("hot.account.credits.deferred").register(meterRegistry);
+        this.settledBatchSize = DistributionSummary.builder("hot.account.credits.settled.batch").register(meterRegistry);
+    }
+
+    public boolean isHot(String accountNumber) {
+        return hotAccountNumbers.contains(accountNumber);
+    }
+
+    /**
+     * Records a credit to a hot account without touching its row.
+     * The amount must already be in the account's currency, in {@link Money} units.
+     */
+    public void defer(String accountNumber, long amount) {
+        pendingCreditRepository.save(new PendingCredit(accountNumber, Money.toBigDecimal(amount)));
+        deferredCredits.increment();
+    }
+
+    /**
+     * Folds all committed pending credits into the balance of the given account.
+     * The caller must hold the account's lock; the account is left dirty, to be flushed with the
+     * caller's transaction.
+     *
+     * @return whether the balance changed
+     */
+    public boolean settle(Account account) {
+        List<PendingCredit> credits = pendingCreditRepository.findAllByAccountNumber(account.getAccountNumber());
+        if (credits.isEmpty()) {
+            return false;
+        }
+
+        long total = 0L;
+        for (PendingCredit credit : credits) {
+            total = Money.add(total, Money.toUnits(credit.getAmount()));
+        }
+        account.setBalanceUnits(Money.add(account.getBalanceUnits(), total));
+        // Delete exactly the rows that were summed; credits committed meanwhile wait for the next round
+        pendingCreditRepository.deleteAllInBatch(credits);
+        settledBatchSize.record(credits.size());
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${moneytransfer.hot-accounts.drain-interval:PT0.1S}")
+    public void drain() {
+        for (String accountNumber : hotAccountNumbers) {
+            try {
+                if (pendingCreditRepository.existsByAccountNumber(accountNumber)) {
+                    drain(accountNumber);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to settle pending credits of account {}", accountNumber, e);
+            }
+        }
+    }
+
+    private void drain(String accountNumber) {
+        if (concurrencyMode == ConcurrencyMode.STRIPED) {
+            try (StripedAccountLocks.Locked ignored = stripedAccountLocks.lock(accountNumber)) {
+                transactionTemplate.executeWithoutResult(status ->
+                        accountRepository.findByAccountNumber(accountNumber).ifPresent(this::settle));
+            }
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                accountRepository.findAllByAccountNumberInWithLock(List.of(accountNumber)).forEach(this::settle));
+    }
+}
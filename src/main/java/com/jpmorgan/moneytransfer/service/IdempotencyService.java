@@ -0,0 +1,128 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jpmorgan.moneytransfer.exception.IdempotencyKeyConflictException;
+import com.jpmorgan.moneytransfer.repository.IdempotencyKeyRepository;
+import com.jpmorgan.moneytransfer.repository.model.IdempotencyKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Deduplicates transfers submitted with an {@code Idempotency-Key}.
+ * <p>
+ * Keys of completed transfers are persisted in {@code idempotency_keys} in the transfer's own
+ * transaction, and kept in a bounded in-memory cache (size and time based eviction) in front of
+ * that table. A retried request is answered from the cache, or from one primary-key lookup, before
+ * any account lock is taken. Failed transfers do not consume their key.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Cache<String, IdempotencyKey> cache;
+
+    @Autowired
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${moneytransfer.idempotency.cache-size:100000}") long cacheSize,
+                              @Value("${moneytransfer.idempotency.cache-ttl:PT1H}") Duration cacheTtl,
+                              @Value("${moneytransfer.idempotency.retention:P1D}") Duration retention,
+                              MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency.keys");
+    }
+
+    /**
+     * Returns the transfer id previously recorded for the key, or {@code null} if the key is unused.
+     *
+     * @throws IdempotencyKeyConflictException if the key was used for a different transfer
+     */
+    public Long findTransferId(String idempotencyKey, String sourceAccountNumber, String destinationAccountNumber,
+                               BigDecimal amount, String currencyCode) {
+        validate(idempotencyKey);
+        IdempotencyKey key = cache.getIfPresent(idempotencyKey);
+        if (key == null) {
+            key = idempotencyKeyRepository.findById(idempotencyKey).orElse(null);
+            if (key == null) {
+                return null;
+            }
+            cache.put(idempotencyKey, key);
+        }
+
+        if (!key.getRequestFingerprint().equals(fingerprint(sourceAccountNumber, destinationAccountNumber, amount, currencyCode))) {
+            throw new IdempotencyKeyConflictException("Idempotency key " + idempotencyKey + " was already used for a different transfer");
+        }
+        return key.getTransferId();
+    }
+
+    /**
+     * Records the key for a transfer. Must be called inside the transfer transaction; the key
+     * becomes visible to the cache once that transaction commits.
+     */
+    public void record(String idempotencyKey, Long transferId, String sourceAccountNumber, String destinationAccountNumber,
+                       BigDecimal amount, String currencyCode) {
+        IdempotencyKey key = idempotencyKeyRepository.save(new IdempotencyKey(idempotencyKey,
+                fingerprint(sourceAccountNumber, destinationAccountNumber, amount, currencyCode), transferId, Instant.now()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(idempotencyKey, key);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${moneytransfer.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(retention)));
+        logger.debug("Purged {} expired idempotency keys", deleted);
+    }
+
+    private void validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private static String fingerprint(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                                      String currencyCode) {
+        String request = sourceAccountNumber + '|' + destinationAccountNumber + '|'
+                + amount.stripTrailingZeros().toPlainString() + '|' + currencyCode;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
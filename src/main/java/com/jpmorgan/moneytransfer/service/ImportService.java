@@ -0,0 +1,169 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.jpmorgan.moneytransfer.dto.AccountResponse;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bulk loads of accounts and currency rates, in the formats the exports write: an account export
+ * can be loaded as is into an empty store. The input is streamed and handed to
+ * {@link AccountService#createAccounts} in chunks of {@code moneytransfer.import.chunk-size}, one
+ * transaction each, so memory stays flat and a failure leaves the chunks before it committed.
+ * Rates use {@value #RATES_CSV_HEADER} in CSV and the same names in NDJSON.
+ */
+@Service
+public class ImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    static final String RATES_CSV_HEADER = "fromCurrency,toCurrency,rate";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AccountService accountService;
+    private final CurrencyRateService currencyRateService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    @Autowired
+    public ImportService(AccountService accountService,
+                         CurrencyRateService currencyRateService,
+                         ObjectMapper objectMapper,
+                         @Value("${moneytransfer.import.chunk-size:1000}") int chunkSize) {
+        this.accountService = accountService;
+        this.currencyRateService = currencyRateService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the number of accounts created
+     * @throws IllegalArgumentException if a row is malformed or an account invalid; earlier chunks stay committed
+     */
+    public long importAccounts(InputStream in, ExportFormat format) throws IOException {
+        long start = System.nanoTime();
+        long[] imported = new long[1];
+        List<Account> chunk = new ArrayList<>(chunkSize);
+        forEachRow(in, format, ExportService.ACCOUNTS_CSV_HEADER, AccountResponse.class,
+                fields -> new AccountResponse(fields[0], fields[1], new BigDecimal(fields[2]), fields[3]),
+                row -> {
+                    chunk.add(new Account(row.accountNumber(), row.ownerName(), row.balance(), row.currencyCode()));
+                    if (chunk.size() == chunkSize) {
+                        imported[0] += accountService.createAccounts(chunk);
+                        chunk.clear();
+                    }
+                });
+        if (!chunk.isEmpty()) {
+            imported[0] += accountService.createAccounts(chunk);
+        }
+        logger.info("Imported {} accounts in {} ms", imported[0],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return imported[0];
+    }
+
+    /**
+     * Creates or replaces one rate per row.
+     *
+     * @return the number of rates saved
+     */
+    public long importRates(InputStream in, ExportFormat format) throws IOException {
+        long[] imported = new long[1];
+        forEachRow(in, format, RATES_CSV_HEADER, RateRow.class,
+                fields -> new RateRow(fields[0], fields[1], new BigDecimal(fields[2])),
+                row -> {
+                    currencyRateService.saveCurrencyRate(row.fromCurrency(), row.toCurrency(), row.rate());
+                    imported[0]++;
+                });
+        logger.info("Imported {} currency rates", imported[0]);
+        return imported[0];
+    }
+
+    private <T> void forEachRow(InputStream in, ExportFormat format, String csvHeader, Class<T> type,
+                                Function<String[], T> csvRow, Consumer<T> action) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            ObjectReader reader = objectMapper.readerFor(type);
+            try (MappingIterator<T> rows = reader.readValues(in)) {
+                while (rows.hasNext()) {
+                    action.accept(rows.next());
+                }
+            }
+            return;
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String header = reader.readLine();
+        if (!csvHeader.equals(header)) {
+            throw new IllegalArgumentException("Expected CSV header " + csvHeader + " but found " + header);
+        }
+        int columns = csvHeader.split(",").length;
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = parseCsvLine(line);
+            if (fields.length != columns) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected " + columns + " fields but found "
+                        + fields.length);
+            }
+            action.accept(csvRow.apply(fields));
+        }
+    }
+
+    /**
+     * Splits an RFC 4180 record; quoted fields may contain commas and doubled quotes, but not line breaks.
+     */
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * One currency rate of an import.
+     */
+    public record RateRow(String fromCurrency, String toCurrency, BigDecimal rate) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.jpmorgan.moneytransfer.repository.BalanceSnapshotRepository;
+import com.jpmorgan.moneytransfer.repository.LedgerEntryRepository;
+import com.jpmorgan.moneytransfer.repository.TransferRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.repository.model.BalanceSnapshot;
+import com.jpmorgan.moneytransfer.repository.model.LedgerEntry;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import com.jpmorgan.moneytransfer.repository.model.Transfer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only record of every balance movement.
+ * <p>
+ * Each transfer writes one {@link Transfer} row and two {@link LedgerEntry} rows (the debit of the
+ * source and the credit of the destination, each in its account's currency). Ids come from pooled
+ * sequences, so the rows are only inserted when the transfer transaction flushes, together with
+ * the balance updates, in JDBC batches.
+ * <p>
+ * The balance of an account is the sum of its entries. {@code Account.balance} is kept as the
+ * materialized projection and can be rebuilt from the latest {@link BalanceSnapshot} plus the
+ * entries it does not cover; snapshots are taken periodically so that replay stays short.
+ */
+@Service
+public class LedgerService {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    private final TransferRepository transferRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LedgerService(TransferRepository transferRepository,
+                         LedgerEntryRepository ledgerEntryRepository,
+                         BalanceSnapshotRepository balanceSnapshotRepository,
+                         TransactionTemplate transactionTemplate) {
+        this.transferRepository = transferRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Records a transfer and its two entries. Must be called inside the transaction that changes
+     * the balances, so the ledger and the projection commit or roll back together.
+     *
+     * @param debited  amount taken from the source account, in its currency, fee included, in {@link Money} units
+     * @param credited amount added to the destination account, in its currency, in {@link Money} units
+     */
+    public Transfer recordTransfer(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                                   String currencyCode, long debited, long credited) {
+        Instant now = Instant.now();
+        Transfer transfer = transferRepository.save(
+                new Transfer(sourceAccountNumber, destinationAccountNumber, amount, currencyCode, now));
+        ledgerEntryRepository.save(new LedgerEntry(transfer.getId(), sourceAccountNumber,
+                LedgerEntry.EntryType.DEBIT, Money.toBigDecimal(-debited), now));
+        ledgerEntryRepository.save(new LedgerEntry(transfer.getId(), destinationAccountNumber,
+                LedgerEntry.EntryType.CREDIT, Money.toBigDecimal(credited), now));
+        return transfer;
+    }
+
+    /**
+     * Records the balance a new account starts with.
+     */
+    public void recordOpening(Account account) {
+        ledgerEntryRepository.save(new LedgerEntry(null, account.getAccountNumber(),
+                LedgerEntry.EntryType.OPENING, account.getBalance(), Instant.now()));
+    }
+
+    /**
+     * Replays the ledger of an account: latest snapshot plus every entry it does not cover.
+     * Credits to hot accounts are included as soon as they are accepted, even before they are
+     * settled into {@code Account.balance}.
+     * <p>
+     * Runs only ever stamp entries with a number above every existing snapshot's, so a run that
+     * commits between the two queries moves entries from "not yet stamped" to "stamped later" and
+     * they are still counted exactly once.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal projectBalance(String accountNumber) {
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository.findFirstByAccountNumberOrderBySnapshotRunDesc(accountNumber);
+        BigDecimal balance = snapshot.map(BalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        long snapshotRun = snapshot.map(BalanceSnapshot::getSnapshotRun).orElse(0L);
+        return balance.add(ledgerEntryRepository.sumAmountsAfterRun(accountNumber, snapshotRun));
+    }
+
+    /**
+     * Snapshots every account that has entries committed since the previous run.
+     * <p>
+     * The run stamps the entries it covers with its number rather than taking an id range: ledger
+     * ids are handed out in pooled blocks, per node and before commit, so an entry can commit with
+     * a lower id than one already snapshotted. Entries that are not committed yet are not visible
+     * to the run, stay unstamped and are covered by the next one.
+     * <p>
+     * Runs are numbered one past the latest snapshot. Two nodes that take the same number for the
+     * same account collide on its unique index, and the run that commits second is rolled back.
+     */
+    @Scheduled(initialDelayString = "${moneytransfer.ledger.snapshot-interval:PT10M}",
+            fixedDelayString = "${moneytransfer.ledger.snapshot-interval:PT10M}")
+    public void snapshotBalances() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> snapshotRun());
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Skipped a ledger snapshot run taken by another node at the same time");
+        }
+    }
+
+    private void snapshotRun() {
+        Long previousRun = balanceSnapshotRepository.findMaxSnapshotRun();
+        long run = previousRun == null ? 1L : previousRun + 1;
+        if (ledgerEntryRepository.stampSnapshotRun(run) == 0) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        List<LedgerEntryRepository.AccountTotal> totals = ledgerEntryRepository.sumAmountsByAccount(run);
+        for (LedgerEntryRepository.AccountTotal total : totals) {
+            BigDecimal previousBalance = balanceSnapshotRepository
+                    .findFirstByAccountNumberOrderBySnapshotRunDesc(total.getAccountNumber())
+                    .map(BalanceSnapshot::getBalance)
+                    .orElse(BigDecimal.ZERO);
+            balanceSnapshotRepository.save(new BalanceSnapshot(total.getAccountNumber(),
+                    previousBalance.add(total.getTotal()), run, now));
+        }
+        logger.debug("Snapshotted {} account balances in run {}", totals.size(), run);
+    }
+}
@@ -0,0 +1,420 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jpmorgan.moneytransfer.dto.AsyncTransferStatus;
+import com.jpmorgan.moneytransfer.exception.AccountNotFoundException;
+import com.jpmorgan.moneytransfer.exception.InsufficientFundsException;
+import com.jpmorgan.moneytransfer.exception.TransferRejectedException;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.PendingCreditRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import com.jpmorgan.moneytransfer.repository.model.Transfer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous transfers applied by one writer thread per shard of the account space.
+ * <p>
+ * Each account belongs to exactly one shard (by hash of its account number) and only that
+ * shard's writer changes its balance on this path, so no row locks are taken: the writer
+ * drains whatever has queued up and applies it in one transaction (group commit), with the
+ * {@code @Version} check guarding against the synchronous endpoints writing the same rows.
+ * <p>
+ * A transfer between two shards is a two-phase handoff, always in the same direction:
+ * <ol>
+ *     <li>the source shard debits the source, records both ledger entries and queues the credit
+ *     in {@code pending_credits}, in one transaction;</li>
+ *     <li>once that commits, the destination shard is asked to fold the account's pending credits
+ *     into its balance, the same way hot account credits are settled.</li>
+ * </ol>
+ * Phase 1 decides the outcome; phase 2 cannot fail for business reasons and is idempotent, so a
+ * handoff that is lost (on a crash, or after repeated write conflicts) is simply redone at the next
+ * startup or by the periodic sweep of {@code pending_credits}. Between the two phases the credit is
+ * already in the ledger but not yet in the destination's stored balance.
+ * <p>
+ * Statuses are kept in memory only, for {@code moneytransfer.async.status-ttl}.
+ */
+@Service
+public class ShardedTransferEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedTransferEngine.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000L;
+
+    private final AccountRepository accountRepository;
+    private final PendingCreditRepository pendingCreditRepository;
+    private final TransferAmountCalculator amountCalculator;
+    private final HotAccountCredits hotAccountCredits;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferPreValidator preValidator;
+    private final int queueCapacity;
+    private final int maxGroupSize;
+    private final Shard[] shards;
+    private final Cache<String, AsyncTransferStatus> statuses;
+    private final Counter rejectedCounter;
+    private final DistributionSummary groupSizeSummary;
+
+    @Autowired
+    public ShardedTransferEngine(AccountRepository accountRepository,
+                                 PendingCreditRepository pendingCreditRepository,
+                                 TransferAmountCalculator amountCalculator,
+                                 HotAccountCredits hotAccountCredits,
+                                 LedgerService ledgerService,
+                                 TransactionTemplate transactionTemplate,
+                                 TransferPreValidator preValidator,
+                                 @Value("${moneytransfer.async.shards:8}") int shardCount,
+                                 @Value("${moneytransfer.async.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${moneytransfer.async.max-group-size:100}") int maxGroupSize,
+                                 @Value("${moneytransfer.async.status-cache-size:1000000}") long statusCacheSize,
+                                 @Value("${moneytransfer.async.status-ttl:PT1H}") Duration statusTtl,
+                                 MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.pendingCreditRepository = pendingCreditRepository;
+        this.amountCalculator = amountCalculator;
+        this.hotAccountCredits = hotAccountCredits;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.preValidator = preValidator;
+        this.queueCapacity = queueCapacity;
+        this.maxGroupSize = maxGroupSize;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(statusCacheSize)
+                .expireAfterWrite(statusTtl)
+                .build();
+        this.rejectedCounter = Counter.builder("transfer.async.rejected").register(meterRegistry);
+        this.groupSizeSummary = DistributionSummary.builder("transfer.async.group.size")
+                .description("Tasks applied per shard transaction")
+                .register(meterRegistry);
+        Gauge.builder("transfer.async.queued", this, ShardedTransferEngine::queuedTransfers)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a transfer on the shard of its source account, once {@link TransferPreValidator} has
+     * found nothing wrong with it.
+     *
+     * @throws TransferRejectedException if that shard's queue is full
+     */
+    public AsyncTransferStatus submit(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                                      String currencyCode) {
+        preValidator.validate(sourceAccountNumber, destinationAccountNumber, amount, currencyCode);
+
+        String id = UUID.randomUUID().toString();
+        AsyncTransferStatus status = AsyncTransferStatus.pending(id);
+        statuses.put(id, status);
+        TransferTask task = new TransferTask(id, sourceAccountNumber, destinationAccountNumber, amount,
+                Money.toUnits(amount), currencyCode);
+        if (!shardOf(sourceAccountNumber).offer(task)) {
+            statuses.invalidate(id);
+            rejectedCounter.increment();
+            throw new TransferRejectedException("Too many queued transfers, try again later");
+        }
+        return status;
+    }
+
+    /**
+     * Returns the status of a submitted transfer, or {@code null} if the id is unknown or expired.
+     */
+    public AsyncTransferStatus findStatus(String id) {
+        return statuses.getIfPresent(id);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Completes the second phase of handoffs that were interrupted by a restart, or whose
+     * settlement was given up after {@value #MAX_ATTEMPTS} write conflicts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${moneytransfer.async.settle-sweep-interval:PT5S}",
+            fixedDelayString = "${moneytransfer.async.settle-sweep-interval:PT5S}")
+    public void settleInterruptedHandoffs() {
+        for (String accountNumber : pendingCreditRepository.findDistinctAccountNumbers()) {
+            if (!hotAccountCredits.isHot(accountNumber)) {
+                shardOf(accountNumber).scheduleSettlement(accountNumber);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting transfers and lets every writer finish what is already queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.running = false;
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+
+    private int queuedTransfers() {
+        int queued = 0;
+        for (Shard shard : shards) {
+            queued += shard.queuedTransfers.get();
+        }
+        return queued;
+    }
+
+    private Shard shardOf(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    private sealed interface ShardTask permits TransferTask, SettleTask {
+    }
+
+    private record TransferTask(String id, String sourceAccountNumber, String destinationAccountNumber,
+                                BigDecimal amount, long amountUnits, String currencyCode) implements ShardTask {
+    }
+
+    private record SettleTask(String accountNumber) implements ShardTask {
+    }
+
+    /**
+     * @param status               new status of a transfer task, {@code null} for settle tasks
+     * @param handoffAccountNumber account whose shard must settle a credit queued by this task
+     */
+    private record Outcome(AsyncTransferStatus status, String handoffAccountNumber) {
+    }
+
+    private final class Shard implements Runnable {
+
+        private final int index;
+        private final LinkedBlockingQueue<ShardTask> queue = new LinkedBlockingQueue<>();
+        // Only client transfers count towards the capacity; handoffs must never be refused
+        private final AtomicInteger queuedTransfers = new AtomicInteger();
+        private final Set<String> scheduledSettlements = ConcurrentHashMap.newKeySet();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Shard(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "transfer-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        boolean offer(TransferTask task) {
+            if (!running || queuedTransfers.incrementAndGet() > queueCapacity) {
+                queuedTransfers.decrementAndGet();
+                return false;
+            }
+            queue.add(task);
+            return true;
+        }
+
+        void scheduleSettlement(String accountNumber) {
+            // Settling folds every pending credit of the account, so one queued task is enough
+            if (scheduledSettlements.add(accountNumber)) {
+                queue.add(new SettleTask(accountNumber));
+            }
+        }
+
+        @Override
+        public void run() {
+            List<ShardTask> group = new ArrayList<>(maxGroupSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    ShardTask first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                    queue.drainTo(group, maxGroupSize - 1);
+                    process(group);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    logger.error("Shard {} failed to process {} tasks", index, group.size(), e);
+                } finally {
+                    group.clear();
+                }
+            }
+        }
+
+        private void process(List<ShardTask> group) {
+            int transfers = 0;
+            for (ShardTask task : group) {
+                if (task instanceof TransferTask) {
+                    transfers++;
+                } else if (task instanceof SettleTask settle) {
+                    // Credits queued after this point get a task of their own
+                    scheduledSettlements.remove(settle.accountNumber());
+                }
+            }
+            queuedTransfers.addAndGet(-transfers);
+            groupSizeSummary.record(group.size());
+
+            List<Outcome> outcomes;
+            try {
+                outcomes = transactionTemplate.execute(status -> apply(group));
+            } catch (RuntimeException e) {
+                // A write conflict with the synchronous path, or a database error: apply the tasks
+                // one by one so that a single bad task cannot fail the whole group
+                logger.debug("Shard {} group of {} failed, retrying tasks individually", index, group.size(), e);
+                outcomes = new ArrayList<>(group.size());
+                for (ShardTask task : group) {
+                    outcomes.add(applyAlone(task));
+                }
+            }
+            publish(outcomes);
+        }
+
+        private Outcome applyAlone(ShardTask task) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> apply(List.of(task))).get(0);
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        return failed(task, "Transfer failed: concurrent update of the account, try again");
+                    }
+                } catch (RuntimeException e) {
+                    return failed(task, "Transfer failed: " + e.getMessage());
+                }
+            }
+        }
+
+        private Outcome failed(ShardTask task, String message) {
+            if (task instanceof TransferTask transfer) {
+                return new Outcome(AsyncTransferStatus.failed(transfer.id(), message), null);
+            }
+            // Pending credits stay queued and are picked up by the next settlement of the account,
+            // at the latest by the next sweep
+            logger.warn("Shard {} failed to settle pending credits: {}", index, message);
+            return new Outcome(null, null);
+        }
+
+        private List<Outcome> apply(List<ShardTask> group) {
+            Set<String> accountNumbers = new HashSet<>();
+            for (ShardTask task : group) {
+                if (task instanceof TransferTask transfer) {
+                    accountNumbers.add(transfer.sourceAccountNumber());
+                    accountNumbers.add(transfer.destinationAccountNumber());
+                } else if (task instanceof SettleTask settle) {
+                    accountNumbers.add(settle.accountNumber());
+                }
+            }
+            Map<String, Account> accounts = new HashMap<>(accountNumbers.size() * 2);
+            for (Account account : accountRepository.findAllByAccountNumberIn(accountNumbers)) {
+                accounts.put(account.getAccountNumber(), account);
+            }
+
+            List<Outcome> outcomes = new ArrayList<>(group.size());
+            for (ShardTask task : group) {
+                if (task instanceof TransferTask transfer) {
+                    outcomes.add(applyTransfer(transfer, accounts));
+                } else if (task instanceof SettleTask settle) {
+                    Account account = accounts.get(settle.accountNumber());
+                    if (account != null) {
+                        hotAccountCredits.settle(account);
+                    }
+                    outcomes.add(new Outcome(null, null));
+                }
+            }
+            return outcomes;
+        }
+
+        /**
+         * Every check that can fail runs before the first change, so a failed transfer leaves
+         * nothing behind in the group's transaction.
+         */
+        private Outcome applyTransfer(TransferTask task, Map<String, Account> accounts) {
+            try {
+                Account source = findAccount(accounts, task.sourceAccountNumber());
+                // The destination may belong to another shard: only its currency is read here
+                Account destination = findAccount(accounts, task.destinationAccountNumber());
+                long debit = amountCalculator.computeDebitAmount(source.getCurrencyCode(), task.amountUnits(),
+                        task.currencyCode());
+                long credit = amountCalculator.computeCreditAmount(destination.getCurrencyCode(), task.amountUnits(),
+                        task.currencyCode());
+
+                if (hotAccountCredits.isHot(source.getAccountNumber())) {
+                    hotAccountCredits.settle(source);
+                }
+                if (source.getBalanceUnits() < debit) {
+                    throw new InsufficientFundsException("Insufficient funds in account: " + source.getAccountNumber());
+                }
+
+                source.setBalanceUnits(Money.subtract(source.getBalanceUnits(), debit));
+                String handoffAccountNumber = null;
+                if (hotAccountCredits.isHot(destination.getAccountNumber())) {
+                    hotAccountCredits.defer(destination.getAccountNumber(), credit);
+                } else if (shardOf(destination.getAccountNumber()) == this) {
+                    destination.setBalanceUnits(Money.add(destination.getBalanceUnits(), credit));
+                } else {
+                    hotAccountCredits.defer(destination.getAccountNumber(), credit);
+                    handoffAccountNumber = destination.getAccountNumber();
+                }
+                Transfer transfer = ledgerService.recordTransfer(task.sourceAccountNumber(), task.destinationAccountNumber(),
+                        task.amount(), task.currencyCode(), debit, credit);
+                return new Outcome(AsyncTransferStatus.completed(task.id(), transfer.getId()), handoffAccountNumber);
+            } catch (DataAccessException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                return new Outcome(AsyncTransferStatus.failed(task.id(), e.getMessage()), null);
+            }
+        }
+
+        private Account findAccount(Map<String, Account> accounts, String accountNumber) {
+            Account account = accounts.get(accountNumber);
+            if (account == null) {
+                throw new AccountNotFoundException("Account not found: " + accountNumber);
+            }
+            return account;
+        }
+
+        private void publish(List<Outcome> outcomes) {
+            for (Outcome outcome : outcomes) {
+                if (outcome.status() != null) {
+                    statuses.put(outcome.status().id(), outcome.status());
+                }
+                if (outcome.handoffAccountNumber() != null) {
+                    shardOf(outcome.handoffAccountNumber()).scheduleSettlement(outcome.handoffAccountNumber());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.jpmorgan.moneytransfer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size table of {@link ReentrantLock}s, keyed by account number.
+ * <p>
+ * Account numbers are hashed onto a power-of-two number of stripes. Several accounts may share
+ * a stripe, which only costs some false contention. Stripes are always acquired in ascending index
+ * order, so two callers locking overlapping sets of accounts can never deadlock.
+ */
+@Component
+public class StripedAccountLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedAccountLocks(@Value("${moneytransfer.concurrency.stripes:1024}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Blocks until the stripes of all given accounts are held by the current thread.
+     * The returned handle releases them on {@link Locked#close()}.
+     */
+    public Locked lock(String... accountNumbers) {
+        int[] indexes = new int[accountNumbers.length];
+        for (int i = 0; i < accountNumbers.length; i++) {
+            indexes[i] = stripeIndex(accountNumbers[i]);
+        }
+        Arrays.sort(indexes);
+
+        int count = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                indexes[count++] = indexes[i];
+            }
+        }
+
+        int acquired = 0;
+        try {
+            for (; acquired < count; acquired++) {
+                stripes[indexes[acquired]].lock();
+            }
+        } catch (RuntimeException | Error e) {
+            unlock(indexes, acquired);
+            throw e;
+        }
+        return new Locked(indexes, count);
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    // Times the current thread holds the stripe of the account
+    int holdCount(String accountNumber) {
+        return stripes[stripeIndex(accountNumber)].getHoldCount();
+    }
+
+    int stripeIndex(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    public final class Locked implements AutoCloseable {
+        private final int[] indexes;
+        private final int count;
+
+        private Locked(int[] indexes, int count) {
+            this.indexes = indexes;
+            this.count = count;
+        }
+
+        @Override
+        public void close() {
+            unlock(indexes, count);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.jpmorgan.moneytransfer.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Producers claim a slot by advancing {@code tail} with a CAS and then publish the element into it;
+ * {@link #offer} never blocks and fails when the buffer is full. The consumer takes elements in
+ * claim order and frees each slot before advancing {@code head}. A claimed but not yet published
+ * slot reads as empty, so the consumer just tries again later.
+ */
+final class TraceRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    TraceRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return {@code false} if the buffer is full
+     */
+    boolean offer(E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) (claimed & mask), element);
+        return true;
+    }
+
+    /**
+     * Takes the oldest element; must only be called from the consumer thread.
+     *
+     * @return {@code null} if there is nothing to take yet
+     */
+    E poll() {
+        long next = head.get();
+        int index = (int) (next & mask);
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(next + 1);
+        return element;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
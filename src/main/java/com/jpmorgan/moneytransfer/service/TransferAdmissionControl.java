@@ -0,0 +1,183 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.jpmorgan.moneytransfer.exception.TransferRejectedException;
+import com.jpmorgan.moneytransfer.exception.TransferThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limit on the transfer requests in progress, checked before the transfer service and
+ * its retries are entered.
+ * <p>
+ * The limit follows AIMD: it grows by one for every transfer that completes within
+ * {@code moneytransfer.admission.latency-threshold} while at least half of it is in use, and is
+ * multiplied by {@code backoff-ratio} for every transfer that took longer, failed on a lock or
+ * was turned away by the bulkhead. A request over the limit, or one of whose accounts already has
+ * {@code max-in-flight-per-account} transfers in progress, is rejected at once instead of queueing
+ * for a lock, so throughput stays at what the database sustains when contention spikes. Credits to
+ * netted hot accounts take no lock and are not capped per account.
+ */
+@Component
+public class TransferAdmissionControl {
+
+    private final boolean enabled;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final int maxInFlightPerAccount;
+    private final HotAccountCredits hotAccountCredits;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Integer> inFlightPerAccount = new ConcurrentHashMap<>();
+    // Written under the lock of this object, read without it
+    private volatile double limit;
+
+    private final Counter limitRejections;
+    private final Counter accountRejections;
+
+    @Autowired
+    public TransferAdmissionControl(@Value("${moneytransfer.admission.enabled:false}") boolean enabled,
+                                    @Value("${moneytransfer.admission.initial-limit:20}") int initialLimit,
+                                    @Value("${moneytransfer.admission.min-limit:1}") int minLimit,
+                                    @Value("${moneytransfer.admission.max-limit:200}") int maxLimit,
+                                    @Value("${moneytransfer.admission.latency-threshold:PT0.5S}") Duration latencyThreshold,
+                                    @Value("${moneytransfer.admission.backoff-ratio:0.9}") double backoffRatio,
+                                    @Value("${moneytransfer.admission.max-in-flight-per-account:4}") int maxInFlightPerAccount,
+                                    HotAccountCredits hotAccountCredits,
+                                    MeterRegistry meterRegistry) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Admission limits must satisfy 1 <= min-limit <= initial-limit <= max-limit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("moneytransfer.admission.backoff-ratio must be between 0 and 1");
+        }
+        this.enabled = enabled;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.maxInFlightPerAccount = maxInFlightPerAccount;
+        this.hotAccountCredits = hotAccountCredits;
+        this.limitRejections = rejections(meterRegistry, "limit");
+        this.accountRejections = rejections(meterRegistry, "account");
+        if (enabled) {
+            Gauge.builder("transfer.admission.limit", this, TransferAdmissionControl::currentLimit)
+                    .description("Transfers currently allowed in progress at once")
+                    .register(meterRegistry);
+            Gauge.builder("transfer.admission.in.flight", inFlight, AtomicInteger::get)
+                    .description("Admitted transfers in progress")
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("transfer.admission.rejected")
+                .description("Transfers rejected with 429 by the admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public int currentLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Runs {@code work} if the limit and both accounts' caps allow one more transfer.
+     *
+     * @throws TransferThrottledException if they do not; nothing was attempted
+     */
+    public <T> T call(String sourceAccountNumber, String destinationAccountNumber, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        int admittedWith = acquire();
+        boolean capDestination = !hotAccountCredits.isHot(destinationAccountNumber);
+        if (!acquireAccount(sourceAccountNumber)) {
+            inFlight.decrementAndGet();
+            accountRejections.increment();
+            throw new TransferThrottledException("Too many transfers in progress for account " + sourceAccountNumber + ", try again later");
+        }
+        if (capDestination && !acquireAccount(destinationAccountNumber)) {
+            releaseAccount(sourceAccountNumber);
+            inFlight.decrementAndGet();
+            accountRejections.increment();
+            throw new TransferThrottledException("Too many transfers in progress for account " + destinationAccountNumber + ", try again later");
+        }
+
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            return work.get();
+        } catch (CannotAcquireLockException | OptimisticLockingFailureException | TransferRejectedException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            releaseAccount(sourceAccountNumber);
+            if (capDestination) {
+                releaseAccount(destinationAccountNumber);
+            }
+            inFlight.decrementAndGet();
+            adjustLimit(System.nanoTime() - start, overloaded, admittedWith);
+        }
+    }
+
+    private int acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                limitRejections.increment();
+                throw new TransferThrottledException("Too many transfers in progress, try again later");
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private boolean acquireAccount(String accountNumber) {
+        if (maxInFlightPerAccount <= 0) {
+            return true;
+        }
+        boolean[] admitted = new boolean[1];
+        inFlightPerAccount.compute(accountNumber, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxInFlightPerAccount) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private void releaseAccount(String accountNumber) {
+        if (maxInFlightPerAccount <= 0) {
+            return;
+        }
+        inFlightPerAccount.computeIfPresent(accountNumber, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    private synchronized void adjustLimit(long latencyNanos, boolean overloaded, int admittedWith) {
+        if (overloaded || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (admittedWith * 2 >= limit) {
+            // Only a limit that is actually reached says anything about the capacity above it
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
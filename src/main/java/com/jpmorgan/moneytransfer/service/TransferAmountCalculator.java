@@ -0,0 +1,68 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fee and currency conversion math of a transfer, kept free of persistence so it can be
+ * shared by single and batch transfers and measured on its own. All amounts are in
+ * {@link Money} units.
+ */
+@Component
+public class TransferAmountCalculator {
+
+    // 0.01
+    private static final long TRANSACTION_FEE_UNITS = 100L;
+
+    private final CurrencyRateService currencyRateService;
+    private final Timer fxLookupTimer;
+
+    @Autowired
+    public TransferAmountCalculator(CurrencyRateService currencyRateService, MeterRegistry meterRegistry) {
+        this.currencyRateService = currencyRateService;
+        this.fxLookupTimer = Timer.builder("transfer.fx.lookup")
+                .description("Rate lookup and conversion of a cross-currency amount")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Amount taken from an account held in {@code accountCurrencyCode}, including the transaction fee.
+     */
+    public long computeDebitAmount(String accountCurrencyCode, long withdrawAmount, String currencyCode) {
+        long amount = withdrawAmount;
+        if (!accountCurrencyCode.equals(currencyCode))
+        {
+            amount = convert(currencyCode, accountCurrencyCode, amount);
+        }
+        return Money.add(amount, computeTransactionFee(amount));
+    }
+
+    /**
+     * Amount added to an account held in {@code accountCurrencyCode}.
+     */
+    public long computeCreditAmount(String accountCurrencyCode, long depositAmount, String currencyCode) {
+        if (!accountCurrencyCode.equals(currencyCode))
+        {
+            return convert(currencyCode, accountCurrencyCode, depositAmount);
+        }
+        return depositAmount;
+    }
+
+    public long computeTransactionFee(long amount) {
+        return Money.multiply(amount, TRANSACTION_FEE_UNITS);
+    }
+
+    private long convert(String fromCurrencyCode, String toCurrencyCode, long amount) {
+        long start = System.nanoTime();
+        try {
+            return currencyRateService.convert(fromCurrencyCode, toCurrencyCode, amount);
+        } finally {
+            fxLookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
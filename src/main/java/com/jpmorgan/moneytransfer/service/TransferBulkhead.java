@@ -0,0 +1,70 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.jpmorgan.moneytransfer.exception.TransferRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of transfers that hold, or wait for, a database connection at once.
+ * <p>
+ * With platform threads the Tomcat pool bounds concurrency; with virtual threads every request
+ * gets its own thread and thousands of them would otherwise queue inside the connection pool,
+ * each holding the account locks it already took (striped mode) and timing out together. Waiting
+ * here instead is cheap, fair, and bounded by {@code moneytransfer.bulkhead.acquire-timeout},
+ * after which the transfer is rejected. A {@code max-concurrent} of 0 disables the bulkhead.
+ */
+@Component
+public class TransferBulkhead {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public TransferBulkhead(@Value("${moneytransfer.bulkhead.max-concurrent:0}") int maxConcurrent,
+                            @Value("${moneytransfer.bulkhead.acquire-timeout:PT2S}") Duration acquireTimeout,
+                            MeterRegistry meterRegistry) {
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.rejectedCounter = Counter.builder("transfer.bulkhead.rejected").register(meterRegistry);
+        if (permits != null) {
+            Gauge.builder("transfer.bulkhead.available", permits, Semaphore::availablePermits)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs {@code work} once a permit is available.
+     *
+     * @throws TransferRejectedException if no permit became available within the acquire timeout
+     */
+    public <T> T call(Supplier<T> work) {
+        if (permits == null) {
+            return work.get();
+        }
+
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejectedCounter.increment();
+                throw new TransferRejectedException("Too many concurrent transfers, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferRejectedException("Interrupted while waiting to start the transfer");
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
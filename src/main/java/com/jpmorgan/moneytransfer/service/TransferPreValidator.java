@@ -0,0 +1,165 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jpmorgan.moneytransfer.exception.AccountNotFoundException;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.ExportRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Checks a transfer request before any transaction is opened, lock taken or connection borrowed.
+ * <p>
+ * Account existence is answered from memory: a Bloom filter of every account number, loaded once
+ * the application is ready and added to by {@link AccountService#createAccount} on commit, and an
+ * exact, bounded cache of account numbers known not to exist. A number the filter has never seen
+ * is confirmed with one indexed lookup, so an account created by another node is still found;
+ * only a confirmed miss is cached, for {@code moneytransfer.account-index.negative-cache-ttl}.
+ * The transfer currency must appear in the rate table. A request that passes may still fail in
+ * the transaction, for instance on a Bloom filter false positive, exactly as before.
+ */
+@Service
+public class TransferPreValidator {
+    private static final Logger logger = LoggerFactory.getLogger(TransferPreValidator.class);
+
+    private final AccountRepository accountRepository;
+    private final ExportRepository exportRepository;
+    private final CurrencyRateCache currencyRateCache;
+    private final AccountBloomFilter knownAccounts;
+    private final Cache<String, Boolean> missingAccounts;
+    private final Counter invalidRequestRejections;
+    private final Counter unknownAccountRejections;
+    private final Counter unsupportedCurrencyRejections;
+    private final Counter existenceChecks;
+
+    @Autowired
+    public TransferPreValidator(AccountRepository accountRepository,
+                                ExportRepository exportRepository,
+                                CurrencyRateCache currencyRateCache,
+                                @Value("${moneytransfer.account-index.expected-accounts:1000000}") long expectedAccounts,
+                                @Value("${moneytransfer.account-index.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${moneytransfer.account-index.negative-cache-size:10000}") long negativeCacheSize,
+                                @Value("${moneytransfer.account-index.negative-cache-ttl:PT10S}") Duration negativeCacheTtl,
+                                MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.exportRepository = exportRepository;
+        this.currencyRateCache = currencyRateCache;
+        this.knownAccounts = new AccountBloomFilter(expectedAccounts, falsePositiveRate);
+        this.missingAccounts = Caffeine.newBuilder()
+                .maximumSize(negativeCacheSize)
+                .expireAfterWrite(negativeCacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, missingAccounts, "accounts.missing");
+        this.invalidRequestRejections = rejections(meterRegistry, "invalid_request");
+        this.unknownAccountRejections = rejections(meterRegistry, "unknown_account");
+        this.unsupportedCurrencyRejections = rejections(meterRegistry, "unsupported_currency");
+        this.existenceChecks = Counter.builder("account.index.checks")
+                .description("Account numbers unknown to the Bloom filter that were looked up in the database")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("transfer.prevalidation.rejected")
+                .description("Transfers rejected before opening a transaction")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAccountNumbers() {
+        long[] loaded = new long[1];
+        exportRepository.forEachAccountNumber(accountNumber -> {
+            knownAccounts.put(accountNumber);
+            loaded[0]++;
+        });
+        logger.debug("Indexed {} account numbers", loaded[0]);
+    }
+
+    /**
+     * Adds a new account to the index once the current transaction commits.
+     */
+    public void accountCreated(String accountNumber) {
+        accountsCreated(List.of(accountNumber));
+    }
+
+    /**
+     * Adds new accounts to the index once the current transaction commits.
+     */
+    public void accountsCreated(List<String> accountNumbers) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String accountNumber : accountNumbers) {
+                    knownAccounts.put(accountNumber);
+                }
+                missingAccounts.invalidateAll(accountNumbers);
+            }
+        });
+    }
+
+    /**
+     * Checks the shape of a request, without looking anything up.
+     *
+     * @throws IllegalArgumentException if the request can never succeed
+     */
+    public void validateRequest(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
+        if (sourceAccountNumber.equals(destinationAccountNumber)) {
+            invalidRequestRejections.increment();
+            throw new IllegalArgumentException("Source and destination accounts cannot be the same");
+        }
+
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            invalidRequestRejections.increment();
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+    }
+
+    /**
+     * Checks a request, its accounts and its currency.
+     *
+     * @throws IllegalArgumentException if the request can never succeed or the currency has no rates
+     * @throws RuntimeException         if either account does not exist
+     */
+    public void validate(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                         String currencyCode) {
+        validateRequest(sourceAccountNumber, destinationAccountNumber, amount);
+        if (!currencyRateCache.isKnownCurrency(currencyCode)) {
+            unsupportedCurrencyRejections.increment();
+            throw new IllegalArgumentException("Unsupported currency: " + currencyCode);
+        }
+        requireExisting(sourceAccountNumber);
+        requireExisting(destinationAccountNumber);
+    }
+
+    private void requireExisting(String accountNumber) {
+        if (knownAccounts.mightContain(accountNumber)) {
+            return;
+        }
+        if (missingAccounts.getIfPresent(accountNumber) == null) {
+            existenceChecks.increment();
+            if (accountRepository.existsByAccountNumber(accountNumber)) {
+                knownAccounts.put(accountNumber);
+                return;
+            }
+            missingAccounts.put(accountNumber, Boolean.TRUE);
+        }
+        unknownAccountRejections.increment();
+        throw new AccountNotFoundException("Account not found: " + accountNumber);
+    }
+}
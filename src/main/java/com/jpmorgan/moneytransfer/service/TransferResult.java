@@ -0,0 +1,20 @@
+package com.jpmorgan.moneytransfer.service;
+
+/**
+ * Outcome of a completed transfer.
+ *
+ * @param transferId               id of the transfer in the ledger
+ * @param sourceAccountNumber      the debited account
+ * @param destinationAccountNumber the credited account
+ * @param lockWaitNanos            time spent acquiring the account locks in the successful attempt
+ * @param attempts                 number of attempts it took, including retries after lock failures
+ * @param replayed                 whether this is the result of an earlier request with the same idempotency key,
+ *                                 in which case nothing was locked or changed
+ */
+public record TransferResult(Long transferId, String sourceAccountNumber, String destinationAccountNumber,
+                             long lockWaitNanos, int attempts, boolean replayed) {
+
+    static TransferResult replayed(Long transferId, String sourceAccountNumber, String destinationAccountNumber) {
+        return new TransferResult(transferId, sourceAccountNumber, destinationAccountNumber, 0L, 1, true);
+    }
+}
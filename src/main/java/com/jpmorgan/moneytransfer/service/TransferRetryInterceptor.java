@@ -0,0 +1,49 @@
+package com.jpmorgan.moneytransfer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.interceptor.RetryInterceptorBuilder;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Retry advice of the transfer methods, referenced by name from their {@code @Retryable}: lock
+ * timeouts and optimistic lock failures are retried after an exponential backoff with full jitter,
+ * within a retry budget shared by all transfers, see {@link TransferRetryPolicy} and
+ * {@link FullJitterBackOffPolicy}.
+ */
+@Component(TransferRetryInterceptor.BEAN_NAME)
+public class TransferRetryInterceptor implements MethodInterceptor {
+
+    public static final String BEAN_NAME = "transferRetryInterceptor";
+
+    private final MethodInterceptor delegate;
+
+    @Autowired
+    public TransferRetryInterceptor(@Value("${moneytransfer.retry.max-attempts:3}") int maxAttempts,
+                                    @Value("${moneytransfer.retry.initial-delay:PT0.0005S}") Duration initialDelay,
+                                    @Value("${moneytransfer.retry.max-delay:PT0.1S}") Duration maxDelay,
+                                    @Value("${moneytransfer.retry.multiplier:4}") double multiplier,
+                                    @Value("${moneytransfer.retry.budget-ratio:0.1}") double budgetRatio,
+                                    @Value("${moneytransfer.retry.budget-burst:10}") int budgetBurst,
+                                    MeterRegistry meterRegistry) {
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new TransferRetryPolicy(maxAttempts, budgetRatio, budgetBurst, meterRegistry));
+        retryTemplate.setBackOffPolicy(new FullJitterBackOffPolicy(initialDelay.toNanos(), maxDelay.toNanos(), multiplier));
+        // Rethrow the last failure as is, as the annotation-only @Retryable did
+        retryTemplate.setThrowLastExceptionOnExhausted(true);
+        this.delegate = RetryInterceptorBuilder.stateless()
+                .retryOperations(retryTemplate)
+                .build();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        return delegate.invoke(invocation);
+    }
+}
@@ -0,0 +1,158 @@
+package com.jpmorgan.moneytransfer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.context.RetryContextSupport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries lock timeouts and optimistic lock failures up to {@code maxAttempts} attempts, within a
+ * budget shared by all transfers: every call adds {@code budgetRatio} of a retry to the budget, up
+ * to {@code budgetBurst} retries, and every retry takes one. Retries thus stay below that share of
+ * the traffic, however widely lock contention spreads, instead of multiplying it.
+ */
+final class TransferRetryPolicy implements RetryPolicy {
+
+    static final String LOCK_TIMEOUT = "lock_timeout";
+    static final String OPTIMISTIC_LOCK = "optimistic_lock";
+
+    // RetryTemplate asks again after backing off, the answer must not take a second retry
+    private static final String DECIDED_ATTEMPT = "transfer.retry.decided-attempt";
+    private static final String DECISION = "transfer.retry.decision";
+    private static final long MILLIS_PER_RETRY = 1000;
+
+    private final int maxAttempts;
+    private final long depositMillis;
+    private final long capacityMillis;
+    private final AtomicLong budgetMillis;
+
+    private final Counter lockTimeoutRetries;
+    private final Counter optimisticLockRetries;
+    private final Counter lockTimeoutAttemptsExhausted;
+    private final Counter optimisticLockAttemptsExhausted;
+    private final Counter lockTimeoutBudgetExhausted;
+    private final Counter optimisticLockBudgetExhausted;
+
+    TransferRetryPolicy(int maxAttempts, double budgetRatio, int budgetBurst, MeterRegistry meterRegistry) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("moneytransfer.retry.max-attempts must be at least 1");
+        }
+        if (budgetRatio < 0 || budgetBurst < 0) {
+            throw new IllegalArgumentException("moneytransfer.retry.budget-ratio and budget-burst must not be negative");
+        }
+        this.maxAttempts = maxAttempts;
+        this.depositMillis = Math.round(budgetRatio * MILLIS_PER_RETRY);
+        this.capacityMillis = budgetBurst * MILLIS_PER_RETRY;
+        this.budgetMillis = new AtomicLong(capacityMillis);
+
+        this.lockTimeoutRetries = retries(meterRegistry, LOCK_TIMEOUT);
+        this.optimisticLockRetries = retries(meterRegistry, OPTIMISTIC_LOCK);
+        this.lockTimeoutAttemptsExhausted = denied(meterRegistry, LOCK_TIMEOUT, "attempts");
+        this.optimisticLockAttemptsExhausted = denied(meterRegistry, OPTIMISTIC_LOCK, "attempts");
+        this.lockTimeoutBudgetExhausted = denied(meterRegistry, LOCK_TIMEOUT, "budget");
+        this.optimisticLockBudgetExhausted = denied(meterRegistry, OPTIMISTIC_LOCK, "budget");
+        Gauge.builder("transfer.retry.budget", budgetMillis, budget -> (double) budget.get() / MILLIS_PER_RETRY)
+                .description("Retries currently available to transfers")
+                .register(meterRegistry);
+    }
+
+    private static Counter retries(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("transfer.retries")
+                .description("Transfer attempts retried, by the failure that caused the retry")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    private static Counter denied(MeterRegistry meterRegistry, String cause, String reason) {
+        return Counter.builder("transfer.retries.denied")
+                .description("Retryable transfer failures that were not retried")
+                .tag("cause", cause)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The cause a failure is retried for, or {@code null} if it is not retried.
+     */
+    static String causeOf(Throwable throwable) {
+        if (throwable instanceof CannotAcquireLockException) {
+            return LOCK_TIMEOUT;
+        }
+        if (throwable instanceof OptimisticLockingFailureException) {
+            return OPTIMISTIC_LOCK;
+        }
+        return null;
+    }
+
+    @Override
+    public RetryContext open(RetryContext parent) {
+        budgetMillis.accumulateAndGet(depositMillis, (budget, deposit) -> Math.min(capacityMillis, budget + deposit));
+        return new RetryContextSupport(parent);
+    }
+
+    @Override
+    public void registerThrowable(RetryContext context, Throwable throwable) {
+        ((RetryContextSupport) context).registerThrowable(throwable);
+    }
+
+    @Override
+    public boolean canRetry(RetryContext context) {
+        Throwable lastThrowable = context.getLastThrowable();
+        if (lastThrowable == null) {
+            return true;
+        }
+        if (Integer.valueOf(context.getRetryCount()).equals(context.getAttribute(DECIDED_ATTEMPT))) {
+            return (Boolean) context.getAttribute(DECISION);
+        }
+
+        boolean retry = decide(lastThrowable, context.getRetryCount());
+        context.setAttribute(DECIDED_ATTEMPT, context.getRetryCount());
+        context.setAttribute(DECISION, retry);
+        return retry;
+    }
+
+    private boolean decide(Throwable lastThrowable, int failedAttempts) {
+        String cause = causeOf(lastThrowable);
+        if (cause == null) {
+            return false;
+        }
+        boolean lockTimeout = LOCK_TIMEOUT.equals(cause);
+        if (failedAttempts >= maxAttempts) {
+            (lockTimeout ? lockTimeoutAttemptsExhausted : optimisticLockAttemptsExhausted).increment();
+            return false;
+        }
+        if (!withdraw()) {
+            (lockTimeout ? lockTimeoutBudgetExhausted : optimisticLockBudgetExhausted).increment();
+            return false;
+        }
+        (lockTimeout ? lockTimeoutRetries : optimisticLockRetries).increment();
+        return true;
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long budget = budgetMillis.get();
+            if (budget < MILLIS_PER_RETRY) {
+                return false;
+            }
+            if (budgetMillis.compareAndSet(budget, budget - MILLIS_PER_RETRY)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void close(RetryContext context) {
+    }
+
+    @Override
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jpmorgan.moneytransfer.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One sampled transfer attempt, as written to the trace file. Durations are in microseconds.
+ *
+ * @param outcome    {@code success}, {@code insufficient_funds}, {@code lock_timeout}, {@code rejected} or {@code error}
+ * @param transferId id of the transfer in the ledger, {@code null} unless it succeeded
+ * @param lockWait   acquiring the account locks
+ * @param update     balance, ledger and idempotency changes under the locks, FX included
+ * @param commit     flushing the changed rows and committing
+ * @param total      the whole attempt, bulkhead wait included
+ */
+public record TransferTraceEvent(Instant timestamp, String outcome, Long transferId, String sourceAccountNumber,
+                                 String destinationAccountNumber, BigDecimal amount, String currencyCode, int attempt,
+                                 long lockWait, long update, long commit, long total) {
+}
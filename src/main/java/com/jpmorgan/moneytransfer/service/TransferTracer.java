@@ -0,0 +1,158 @@
+package com.jpmorgan.moneytransfer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampled, structured tracing of transfer attempts.
+ * <p>
+ * A sampled attempt collects its phase timings in a {@link Sample} and, once it has finished,
+ * hands a {@link TransferTraceEvent} to a {@link TraceRingBuffer}. A single writer thread drains
+ * the buffer and writes each event as one JSON line to the {@code transfer-trace} logger, which
+ * the {@code perf} profile sends to a rolling file. Transfer threads therefore never format,
+ * lock or do I/O for tracing; when the writer falls behind, events are dropped and counted in
+ * {@code transfer.trace.dropped}. Attempts that are not sampled cost one random number.
+ */
+@Component
+public class TransferTracer {
+    private static final Logger logger = LoggerFactory.getLogger(TransferTracer.class);
+    private static final Logger traceLogger = LoggerFactory.getLogger("transfer-trace");
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final double sampleRate;
+    private final TraceRingBuffer<TransferTraceEvent> buffer;
+    private final ObjectMapper objectMapper;
+    private final Counter droppedEvents;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public TransferTracer(@Value("${moneytransfer.tracing.sample-rate:0}") double sampleRate,
+                          @Value("${moneytransfer.tracing.buffer-size:8192}") int bufferSize,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.sampleRate = sampleRate;
+        this.buffer = new TraceRingBuffer<>(bufferSize);
+        this.objectMapper = objectMapper;
+        this.droppedEvents = Counter.builder("transfer.trace.dropped")
+                .description("Sampled transfer trace events dropped because the trace buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (sampleRate <= 0) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeEvents, "transfer-trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Tracing {}% of transfers through a buffer of {} events", sampleRate * 100, buffer.capacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Decides whether to trace an attempt.
+     *
+     * @return the sample to record the attempt's timings in, or {@code null} if it is not traced
+     */
+    public Sample begin() {
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        return new Sample(System.nanoTime());
+    }
+
+    /**
+     * Queues the event of a finished attempt; does nothing for attempts that were not sampled.
+     */
+    public void end(Sample sample, String outcome, Long transferId, String sourceAccountNumber,
+                    String destinationAccountNumber, BigDecimal amount, String currencyCode, int attempt) {
+        if (sample == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        long commitNanos = sample.workEndNanos == 0 ? 0 : end - sample.workEndNanos;
+        TransferTraceEvent event = new TransferTraceEvent(Instant.now(), outcome, transferId, sourceAccountNumber,
+                destinationAccountNumber, amount, currencyCode, attempt, micros(sample.lockWaitNanos),
+                micros(sample.updateNanos), micros(commitNanos), micros(end - sample.startNanos));
+        if (!buffer.offer(event)) {
+            droppedEvents.increment();
+        }
+    }
+
+    private void writeEvents() {
+        while (running) {
+            if (!drain()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain();
+    }
+
+    private boolean drain() {
+        boolean wrote = false;
+        TransferTraceEvent event;
+        while ((event = buffer.poll()) != null) {
+            try {
+                traceLogger.info(objectMapper.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                logger.warn("Failed to write transfer trace event", e);
+            }
+            wrote = true;
+        }
+        return wrote;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Phase timings of one traced attempt, filled in by the thread running it.
+     */
+    public static final class Sample {
+        private final long startNanos;
+        private long lockWaitNanos;
+        private long updateNanos;
+        private long workEndNanos;
+
+        private Sample(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Records the work done under the locks, which ends now.
+         */
+        public void recordWork(long lockWaitNanos, long updateNanos) {
+            this.lockWaitNanos = lockWaitNanos;
+            this.updateNanos = updateNanos;
+            this.workEndNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Account ids come from a sequence with a pooled optimizer, like the ledger's, so that bulk inserts
+ * need no round trip per id and can be sent in JDBC batches.
+ * <p>
+ * The sequence starts one allocation block past the highest existing id, since Hibernate reads the
+ * first value as the top of its first block. The start is read here and written into the DDL as a
+ * constant because {@code start with} / {@code restart with} take no subquery outside of H2.
+ */
+public class V2__account_sequence extends BaseJavaMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet resultSet = statement.executeQuery("select coalesce(max(id), 0) from accounts")) {
+                resultSet.next();
+                maxId = resultSet.getLong(1);
+            }
+            statement.execute("create sequence account_seq start with " + (maxId + ALLOCATION_SIZE)
+                    + " increment by " + ALLOCATION_SIZE);
+            statement.execute("alter table accounts alter column id drop identity");
+        }
+    }
+}
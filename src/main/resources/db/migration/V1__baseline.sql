@@ -0,0 +1,72 @@
+-- Schema as of the introduction of migrations. Column types match what Hibernate validates
+-- against; every index is named so later migrations can refer to it.
+
+create sequence transfer_seq start with 1 increment by 50;
+create sequence ledger_entry_seq start with 1 increment by 50;
+create sequence balance_snapshot_seq start with 1 increment by 50;
+
+create table accounts (
+    id bigint generated by default as identity primary key,
+    account_number varchar(255) not null,
+    owner_name varchar(255) not null,
+    balance numeric(19, 4) not null,
+    currency_code varchar(3) not null,
+    version bigint,
+    -- Every lookup and row lock of a transfer goes through the account number
+    constraint uk_accounts_account_number unique (account_number)
+);
+
+create table currencyrates (
+    id bigint generated by default as identity primary key,
+    from_currency varchar(255) not null,
+    to_currency varchar(255) not null,
+    rate numeric(19, 4) not null,
+    -- One rate per direction; also serves the lookup by currency pair
+    constraint uk_currencyrates_pair unique (from_currency, to_currency)
+);
+
+create table transfers (
+    id bigint not null primary key,
+    source_account_number varchar(255) not null,
+    destination_account_number varchar(255) not null,
+    amount numeric(19, 4) not null,
+    currency_code varchar(3) not null,
+    created_at timestamp(6) with time zone not null
+);
+
+create table ledger_entries (
+    id bigint not null primary key,
+    transfer_id bigint,
+    account_number varchar(255) not null,
+    entry_type varchar(16) not null,
+    amount numeric(19, 4) not null,
+    created_at timestamp(6) with time zone not null,
+    constraint ck_ledger_entries_entry_type check (entry_type in ('OPENING', 'DEBIT', 'CREDIT'))
+);
+-- Balance replay and statements read one account's entries in id order
+create index idx_ledger_entries_account_id on ledger_entries (account_number, id);
+
+create table balance_snapshots (
+    id bigint not null primary key,
+    account_number varchar(255) not null,
+    balance numeric(19, 4) not null,
+    last_entry_id bigint not null,
+    created_at timestamp(6) with time zone not null
+);
+create index idx_balance_snapshots_account_entry on balance_snapshots (account_number, last_entry_id);
+
+create table pending_credits (
+    id bigint generated by default as identity primary key,
+    account_number varchar(255) not null,
+    amount numeric(19, 4) not null
+);
+create index idx_pending_credits_account on pending_credits (account_number);
+
+create table idempotency_keys (
+    idempotency_key varchar(255) not null primary key,
+    request_fingerprint varchar(64) not null,
+    transfer_id bigint not null,
+    created_at timestamp(6) with time zone not null
+);
+-- Purge of expired keys
+create index idx_idempotency_keys_created_at on idempotency_keys (created_at);
@@ -0,0 +1,16 @@
+-- Snapshots cover the ledger entries stamped with their run instead of an id range: ledger ids come
+-- from pooled sequence blocks, so an entry can commit with a lower id than one already snapshotted.
+-- Existing snapshots cannot tell which entries they missed and are dropped; balances are replayed
+-- from the first entry until the next run.
+alter table ledger_entries add column snapshot_run bigint;
+-- The run stamps the entries it has not covered yet, then totals them per account
+create index idx_ledger_entries_run on ledger_entries (snapshot_run);
+-- Balance replay reads one account's entries not covered by its latest snapshot
+create index idx_ledger_entries_account_run on ledger_entries (account_number, snapshot_run);
+
+delete from balance_snapshots;
+drop index idx_balance_snapshots_account_entry;
+alter table balance_snapshots drop column last_entry_id;
+alter table balance_snapshots add column snapshot_run bigint not null;
+-- One snapshot per account and run, so two nodes taking the same run cannot both count an account
+create unique index uk_balance_snapshots_account_run on balance_snapshots (account_number, snapshot_run);
@@ -0,0 +1,83 @@
+package com.jpmorgan.moneytransfer;
+
+import com.jpmorgan.moneytransfer.dto.AsyncTransferStatus;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.PendingCreditRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.HotAccountCredits;
+import com.jpmorgan.moneytransfer.service.ShardedTransferEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+
+// Alice and Bob hash to different shards, so every async credit to Bob is a handoff
+@SpringBootTest(properties = {
+		"moneytransfer.async.settle-sweep-interval=PT0.2S",
+		"spring.datasource.url=jdbc:h2:mem:asyncsettlementdb"
+})
+class AsyncSettlementTests {
+
+	@Autowired
+	private AccountService accountService;
+	@Autowired
+	private AccountRepository accountRepository;
+	@Autowired
+	private PendingCreditRepository pendingCreditRepository;
+	@Autowired
+	private ShardedTransferEngine transferEngine;
+	@MockitoSpyBean
+	private HotAccountCredits hotAccountCredits;
+
+	@BeforeEach
+	public void setup() {
+		Account aliceAccount = accountService.findByAccountNumber("1");
+		Account bobAccount = accountService.findByAccountNumber("2");
+
+		aliceAccount.setBalance(new BigDecimal("1000.00"));
+		bobAccount.setBalance(new BigDecimal("500.00"));
+
+		accountRepository.save(aliceAccount);
+		accountRepository.save(bobAccount);
+	}
+
+	@Test
+	@DisplayName("A handoff whose settlement keeps conflicting is settled by the sweep")
+	public void testConflictingSettlementIsSwept() throws InterruptedException {
+		// Enough conflicts for the shard to give up on the settle task: the group and every retry
+		AtomicInteger conflicts = new AtomicInteger(4);
+		doAnswer(invocation -> {
+			if (conflicts.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+				throw new ObjectOptimisticLockingFailureException(Account.class, "2");
+			}
+			return invocation.callRealMethod();
+		}).when(hotAccountCredits).settle(any(Account.class));
+
+		AsyncTransferStatus accepted = transferEngine.submit("1", "2", new BigDecimal("50.00"), "USD");
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (accountService.findByAccountNumber("2").getBalance().compareTo(new BigDecimal("7733")) != 0
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertEquals("completed", transferEngine.findStatus(accepted.id()).status());
+		assertEquals(0, conflicts.get());
+		assertEquals(new BigDecimal("7733.0000"), accountService.findByAccountNumber("2").getBalance());
+		assertEquals(new BigDecimal("949.5000"), accountService.findByAccountNumber("1").getBalance());
+		assertTrue(pendingCreditRepository.findAllByAccountNumber("2").isEmpty());
+	}
+}
@@ -0,0 +1,105 @@
+package com.jpmorgan.moneytransfer;
+
+import com.jpmorgan.moneytransfer.exception.AccountNotFoundException;
+import com.jpmorgan.moneytransfer.exception.InsufficientFundsException;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.service.AccountCache;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.LedgerService;
+import com.jpmorgan.moneytransfer.service.TransferResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+@SpringBootTest(properties = {
+		"moneytransfer.concurrency.mode=atomic",
+		"spring.datasource.url=jdbc:h2:mem:atomicdb"
+})
+class AtomicTransferModeTests {
+
+	@Autowired
+	private AccountService accountService;
+	@Autowired
+	private AccountRepository accountRepository;
+	@Autowired
+	private AccountCache accountCache;
+	@Autowired
+	private LedgerService ledgerService;
+
+	@BeforeEach
+	public void setup() {
+		Account aliceAccount = accountService.findByAccountNumber("1");
+		Account bobAccount = accountService.findByAccountNumber("2");
+
+		aliceAccount.setBalance(new BigDecimal("1000.00"));
+		bobAccount.setBalance(new BigDecimal("500.00"));
+
+		accountRepository.save(aliceAccount);
+		accountRepository.save(bobAccount);
+	}
+
+	@Test
+	@DisplayName("Transfer 50 USD from Alice to Bob with in-place updates")
+	public void testAtomicTransfer() {
+		long aliceVersion = accountService.findByAccountNumber("1").getVersion();
+		assertEquals(new BigDecimal("1000.0000"), accountCache.find("1").balance());
+
+		TransferResult result = accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD");
+		assertEquals(0L, result.lockWaitNanos());
+
+		Account alice = accountService.findByAccountNumber("1");
+		assertEquals(new BigDecimal("949.5000"), alice.getBalance());
+		assertEquals(aliceVersion + 1, alice.getVersion());
+		assertEquals(new BigDecimal("7733.0000"), accountService.findByAccountNumber("2").getBalance());
+
+		// The cached entry was evicted and is reloaded with the new balance
+		assertEquals(new BigDecimal("949.5000"), accountCache.find("1").balance());
+		assertEquals(0, alice.getBalance().compareTo(ledgerService.projectBalance("1")));
+	}
+
+	@Test
+	@DisplayName("An atomic debit that does not match rolls back the whole transfer")
+	public void testAtomicTransferInsufficientFunds() {
+		// Alice sorts first, so her debit runs before Bob's credit
+		assertThrows(InsufficientFundsException.class,
+				() -> accountService.transferMoney("1", "2", new BigDecimal("5000.00"), "USD"));
+		// Bob sorts last, so Alice's credit has already been applied when his debit fails
+		assertThrows(InsufficientFundsException.class,
+				() -> accountService.transferMoney("2", "1", new BigDecimal("5000.00"), "JPN"));
+
+		assertEquals(new BigDecimal("1000.0000"), accountService.findByAccountNumber("1").getBalance());
+		assertEquals(new BigDecimal("500.0000"), accountService.findByAccountNumber("2").getBalance());
+
+		RuntimeException notFound = assertThrows(RuntimeException.class,
+				() -> accountService.transferMoney("1", "99", new BigDecimal("5.00"), "USD"));
+		assertEquals("Account not found: 99", notFound.getMessage());
+	}
+
+	@Test
+	@DisplayName("An atomic credit that matches no row rolls back the debit")
+	public void testAtomicTransferToRemovedAccount() {
+		Account removed = new Account();
+		removed.setAccountNumber("removed");
+		removed.setOwnerName("Carol");
+		removed.setBalance(BigDecimal.ZERO);
+		removed.setCurrencyCode("USD");
+		accountService.createAccount(removed);
+		// The currency stays cached after the row is gone
+		assertEquals("USD", accountCache.findCurrencyCode("removed"));
+		accountRepository.delete(accountService.findByAccountNumber("removed"));
+
+		// Alice sorts first, so her debit has been applied when the credit finds no row
+		AccountNotFoundException notFound = assertThrows(AccountNotFoundException.class,
+				() -> accountService.transferMoney("1", "removed", new BigDecimal("50.00"), "USD"));
+		assertEquals("Account not found: removed", notFound.getMessage());
+		assertEquals(new BigDecimal("1000.0000"), accountService.findByAccountNumber("1").getBalance());
+	}
+}
@@ -0,0 +1,133 @@
+package com.jpmorgan.moneytransfer;
+
+import com.jpmorgan.moneytransfer.dto.BatchTransferResult;
+import com.jpmorgan.moneytransfer.dto.TransferMoneyDto;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.PendingCreditRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.repository.model.PendingCredit;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.HotAccountCredits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+// Bob is hot; the drain interval is long enough that only the tests settle his credits
+@SpringBootTest(properties = {
+		"moneytransfer.hot-accounts.account-numbers=2",
+		"moneytransfer.hot-accounts.drain-interval=PT1H",
+		"spring.datasource.url=jdbc:h2:mem:hotdb"
+})
+class HotAccountCreditsTests {
+
+	@Autowired
+	private AccountService accountService;
+	@Autowired
+	private AccountRepository accountRepository;
+	@Autowired
+	private PendingCreditRepository pendingCreditRepository;
+	@Autowired
+	private HotAccountCredits hotAccountCredits;
+
+	@BeforeEach
+	public void setup() {
+		pendingCreditRepository.deleteAll();
+
+		Account aliceAccount = accountService.findByAccountNumber("1");
+		Account bobAccount = accountService.findByAccountNumber("2");
+
+		aliceAccount.setBalance(new BigDecimal("1000.00"));
+		bobAccount.setBalance(new BigDecimal("500.00"));
+
+		accountRepository.save(aliceAccount);
+		accountRepository.save(bobAccount);
+	}
+
+	@Test
+	@DisplayName("A credit to a hot account is deferred without touching its row")
+	public void testCreditToHotAccountIsDeferred() {
+		long bobVersion = accountService.findByAccountNumber("2").getVersion();
+
+		accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD");
+
+		List<PendingCredit> credits = pendingCreditRepository.findAllByAccountNumber("2");
+		assertEquals(1, credits.size());
+		assertEquals(new BigDecimal("7233.0000"), credits.get(0).getAmount());
+
+		Account bob = accountService.findByAccountNumber("2");
+		assertEquals(new BigDecimal("500.0000"), bob.getBalance());
+		assertEquals(bobVersion, bob.getVersion());
+		// The source is not hot and is debited in place
+		assertEquals(new BigDecimal("949.5000"), accountService.findByAccountNumber("1").getBalance());
+	}
+
+	@Test
+	@DisplayName("Draining folds the pending credits of hot accounts into their balance")
+	public void testDrain() {
+		accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD");
+		accountService.transferMoney("1", "2", new BigDecimal("10.00"), "USD");
+		// Alice is not hot, so the drain leaves her pending credit alone
+		PendingCredit aliceCredit = pendingCreditRepository.save(new PendingCredit("1", new BigDecimal("1.0000")));
+		assertEquals(2, pendingCreditRepository.findAllByAccountNumber("2").size());
+
+		hotAccountCredits.drain();
+
+		// 500 + 7233 + 1446.6
+		assertEquals(new BigDecimal("9179.6000"), accountService.findByAccountNumber("2").getBalance());
+		assertTrue(pendingCreditRepository.findAllByAccountNumber("2").isEmpty());
+		assertEquals(List.of(aliceCredit.getId()),
+				pendingCreditRepository.findAllByAccountNumber("1").stream().map(PendingCredit::getId).toList());
+		assertEquals(new BigDecimal("939.4000"), accountService.findByAccountNumber("1").getBalance());
+
+		// Nothing is left to settle, so a second drain changes nothing
+		hotAccountCredits.drain();
+		assertEquals(new BigDecimal("9179.6000"), accountService.findByAccountNumber("2").getBalance());
+	}
+
+	@Test
+	@DisplayName("A debit from a hot account settles its pending credits before the funds check")
+	public void testDebitFromHotAccountSettlesFirst() {
+		accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD");
+		assertEquals(new BigDecimal("500.0000"), accountService.findByAccountNumber("2").getBalance());
+
+		// 1010 JPN including the fee, covered only together with the pending 7233
+		accountService.transferMoney("2", "1", new BigDecimal("1000.00"), "JPN");
+
+		assertEquals(new BigDecimal("6723.0000"), accountService.findByAccountNumber("2").getBalance());
+		assertEquals(new BigDecimal("956.4000"), accountService.findByAccountNumber("1").getBalance());
+		assertTrue(pendingCreditRepository.findAllByAccountNumber("2").isEmpty());
+	}
+
+	@Test
+	@DisplayName("A batch settles the pending credits of a hot account and writes its version")
+	public void testBatchSettlesHotAccount() {
+		accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD");
+		long bobVersion = accountService.findByAccountNumber("2").getVersion();
+
+		List<BatchTransferResult> results = accountService.transferMoneyBatch(List.of(
+				transfer("2", "1", "1000.00", "JPN")));
+
+		assertEquals("success", results.get(0).status());
+		Account bob = accountService.findByAccountNumber("2");
+		assertEquals(new BigDecimal("6723.0000"), bob.getBalance());
+		assertEquals(bobVersion + 1, bob.getVersion());
+		assertTrue(pendingCreditRepository.findAllByAccountNumber("2").isEmpty());
+	}
+
+	private static TransferMoneyDto transfer(String source, String destination, String amount, String currencyCode) {
+		TransferMoneyDto transfer = new TransferMoneyDto();
+		transfer.setSourceAccountNumber(source);
+		transfer.setDestinationAccountNumber(destination);
+		transfer.setAmount(new BigDecimal(amount));
+		transfer.setCurrencyCode(currencyCode);
+		return transfer;
+	}
+}
@@ -1,35 +1,96 @@
 package com.jpmorgan.moneytransfer;
 
+import com.jpmorgan.moneytransfer.dto.AccountSnapshot;
+import com.jpmorgan.moneytransfer.dto.AsyncTransferStatus;
+import com.jpmorgan.moneytransfer.dto.BatchTransferResult;
+import com.jpmorgan.moneytransfer.dto.TransferMoneyDto;
+import com.jpmorgan.moneytransfer.exception.IdempotencyKeyConflictException;
 import com.jpmorgan.moneytransfer.exception.InsufficientFundsException;
+import com.jpmorgan.moneytransfer.exception.TransferRejectedException;
+import com.jpmorgan.moneytransfer.exception.TransferThrottledException;
 import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.BalanceSnapshotRepository;
 import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.repository.model.BalanceSnapshot;
+import com.jpmorgan.moneytransfer.repository.model.Money;
+import com.jpmorgan.moneytransfer.service.AccountCache;
 import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.CurrencyRateService;
+import com.jpmorgan.moneytransfer.service.ExportFormat;
+import com.jpmorgan.moneytransfer.service.ExportService;
+import com.jpmorgan.moneytransfer.service.HotAccountCredits;
+import com.jpmorgan.moneytransfer.service.ImportService;
+import com.jpmorgan.moneytransfer.service.LedgerService;
+import com.jpmorgan.moneytransfer.service.ShardedTransferEngine;
+import com.jpmorgan.moneytransfer.service.TransferAdmissionControl;
+import com.jpmorgan.moneytransfer.service.TransferBulkhead;
+import com.jpmorgan.moneytransfer.service.TransferResult;
+import com.jpmorgan.moneytransfer.service.TransferRetryInterceptor;
+import com.jpmorgan.moneytransfer.service.TransferTracer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.jpmorgan.moneytransfer.SqlStatementCounter")
 class MoneytransferApplicationTests {
 
 	@Autowired
 	private AccountService accountService;
 	@Autowired
 	private AccountRepository accountRepository;
+	@Autowired
+	private LedgerService ledgerService;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private ShardedTransferEngine transferEngine;
+	@Autowired
+	private AccountCache accountCache;
+	@Autowired
+	private ExportService exportService;
+	@Autowired
+	private CurrencyRateService currencyRateService;
+	@Autowired
+	private ImportService importService;
+	@Autowired
+	private HotAccountCredits hotAccountCredits;
+	@Autowired
+	private BalanceSnapshotRepository balanceSnapshotRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
 
 	@BeforeEach
 	public void setup() {
@@ -184,4 +245,527 @@ class MoneytransferApplicationTests {
 		}
 
 	}
+
+	@Test
+	@DisplayName("Opposing transfers between the same accounts neither deadlock nor retry")
+	public void testOpposingTransfersDoNotDeadlock() throws InterruptedException {
+		double retries = totalRetries();
+		int transfersPerDirection = 10;
+		CountDownLatch startLatch = new CountDownLatch(1);
+		CountDownLatch finishLatch = new CountDownLatch(transfersPerDirection * 2);
+		List<Exception> exceptions = Collections.synchronizedList(new ArrayList<>());
+
+		for (int i = 0; i < transfersPerDirection; i++) {
+			// 1 USD from Alice to Bob and 10 JPN from Bob to Alice, both accounts locked by each
+			for (Runnable transfer : List.<Runnable>of(
+					() -> accountService.transferMoney("1", "2", new BigDecimal("1.00"), "USD"),
+					() -> accountService.transferMoney("2", "1", new BigDecimal("10.00"), "JPN"))) {
+				new Thread(() -> {
+					try {
+						startLatch.await();
+						transfer.run();
+					} catch (Exception e) {
+						exceptions.add(e);
+					} finally {
+						finishLatch.countDown();
+					}
+				}).start();
+			}
+		}
+		startLatch.countDown();
+
+		assertTrue(finishLatch.await(30, TimeUnit.SECONDS), "Every transfer should complete");
+		assertEquals(List.of(), exceptions);
+		// Both directions lock Alice and Bob in the same order, so no attempt ever waits in a cycle
+		assertEquals(retries, totalRetries());
+
+		// Alice: 1000 - 10 * 1.01 USD + 10 * 0.069 USD; Bob: 500 + 10 * 144.66 JPN - 10 * 10.10 JPN
+		assertEquals(new BigDecimal("990.5900"), accountService.findByAccountNumber("1").getBalance());
+		assertEquals(new BigDecimal("1845.6000"), accountService.findByAccountNumber("2").getBalance());
+	}
+
+	private double totalRetries() {
+		return meterRegistry.find("transfer.retries").counters().stream().mapToDouble(Counter::count).sum();
+	}
+
+	@Test
+	@DisplayName("Batch transfer applies valid items and reports failed ones")
+	public void testBatchTransfer() {
+		List<BatchTransferResult> results = accountService.transferMoneyBatch(List.of(
+				// 10 USD from Alice to Bob
+				transfer("1", "2", "10.00", "USD"),
+				// Unknown destination account
+				transfer("1", "99", "10.00", "USD"),
+				// More than Alice has left
+				transfer("1", "2", "5000.00", "USD"),
+				// 10 USD back from Bob to Alice, paid from the credit of the first item
+				transfer("2", "1", "10.00", "USD")
+		));
+
+		assertEquals(List.of("success", "error", "error", "success"),
+				results.stream().map(BatchTransferResult::status).toList());
+		assertEquals("Account not found: 99", results.get(1).message());
+		assertEquals("Insufficient funds in account: 1", results.get(2).message());
+
+		Account updatedAliceAccount = accountService.findByAccountNumber("1");
+		Account updatedBobAccount = accountService.findByAccountNumber("2");
+
+		// Alice: 1000 - 10.10 + 10; Bob: 500 + 1446.60 - 1461.066
+		assertEquals(new BigDecimal("999.9000"), updatedAliceAccount.getBalance());
+		assertEquals(new BigDecimal("485.5340"), updatedBobAccount.getBalance());
+	}
+
+	@Test
+	@DisplayName("Ledger replay matches the stored balances")
+	public void testLedgerProjection() {
+		accountService.createAccount(new Account("ledger-1", "Carol", new BigDecimal("300.00"), "USD"));
+		accountService.createAccount(new Account("ledger-2", "Dave", new BigDecimal("100.00"), "CNY"));
+
+		accountService.transferMoney("ledger-1", "ledger-2", new BigDecimal("10.00"), "USD");
+		accountService.transferMoney("ledger-2", "ledger-1", new BigDecimal("20.00"), "CNY");
+
+		for (String accountNumber : List.of("ledger-1", "ledger-2")) {
+			BigDecimal balance = accountService.findByAccountNumber(accountNumber).getBalance();
+			assertEquals(0, balance.compareTo(ledgerService.projectBalance(accountNumber)),
+					"Ledger of account " + accountNumber + " should add up to its balance");
+		}
+
+		// A corrupted balance is restored from the ledger
+		Account carol = accountService.findByAccountNumber("ledger-1");
+		carol.setBalance(BigDecimal.ZERO);
+		accountRepository.save(carol);
+		assertEquals(new BigDecimal("292.7000"), accountService.rebuildBalance("ledger-1").getBalance());
+	}
+
+	@Test
+	@DisplayName("An entry that commits after a snapshot is replayed even with a lower id")
+	public void testLedgerSnapshotLateEntry() {
+		accountService.createAccount(new Account("snapshot-1", "Erin", new BigDecimal("100.00"), "USD"));
+		accountService.transferMoney("1", "snapshot-1", new BigDecimal("10.00"), "USD");
+		ledgerService.snapshotBalances();
+		BalanceSnapshot snapshot = balanceSnapshotRepository.findFirstByAccountNumberOrderBySnapshotRunDesc("snapshot-1").orElseThrow();
+		assertEquals(0, new BigDecimal("110.00").compareTo(snapshot.getBalance()));
+
+		// A transfer from another node's older id block, or one that stayed open, committing only now
+		Long lowerId = jdbcTemplate.queryForObject("SELECT MIN(id) - 1 FROM ledger_entries", Long.class);
+		jdbcTemplate.update("INSERT INTO ledger_entries (id, account_number, entry_type, amount, created_at) VALUES (?, ?, ?, ?, ?)",
+				lowerId, "snapshot-1", "CREDIT", new BigDecimal("5.00"), Timestamp.from(Instant.now()));
+		assertEquals(0, new BigDecimal("115.00").compareTo(ledgerService.projectBalance("snapshot-1")));
+
+		// The next run covers it, once
+		ledgerService.snapshotBalances();
+		BalanceSnapshot next = balanceSnapshotRepository.findFirstByAccountNumberOrderBySnapshotRunDesc("snapshot-1").orElseThrow();
+		assertEquals(snapshot.getSnapshotRun() + 1, next.getSnapshotRun());
+		assertEquals(0, new BigDecimal("115.00").compareTo(next.getBalance()));
+		assertEquals(0, new BigDecimal("115.00").compareTo(ledgerService.projectBalance("snapshot-1")));
+	}
+
+	@Test
+	@DisplayName("Retried transfer with the same idempotency key is applied once")
+	public void testIdempotentTransfer() {
+		TransferResult first = accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD", "key-1");
+		TransferResult retried = accountService.transferMoney("1", "2", new BigDecimal("50.0"), "USD", "key-1");
+
+		assertFalse(first.replayed());
+		assertTrue(retried.replayed());
+		assertEquals(first.transferId(), retried.transferId());
+		assertEquals(new BigDecimal("949.5000"), accountService.findByAccountNumber("1").getBalance(),
+				"Alice should only be debited once");
+
+		assertThrows(IdempotencyKeyConflictException.class,
+				() -> accountService.transferMoney("1", "2", new BigDecimal("60.00"), "USD", "key-1"));
+	}
+
+	@Test
+	@DisplayName("Transfers are broken down into lock, FX, update and commit meters")
+	public void testTransferMetrics() {
+		long commits = meterRegistry.get("transfer.commit").tag("type", "single").timer().count();
+		long fxLookups = meterRegistry.get("transfer.fx.lookup").timer().count();
+		double insufficientFunds = meterRegistry.get("transfer.failures").tag("reason", "insufficient_funds").counter().count();
+
+		// Cross-currency: Alice holds USD
+		accountService.transferMoney("1", "2", new BigDecimal("10.00"), "AUD");
+		assertThrows(InsufficientFundsException.class,
+				() -> accountService.transferMoney("1", "2", new BigDecimal("5000.00"), "USD"));
+
+		assertEquals(commits + 1, meterRegistry.get("transfer.commit").tag("type", "single").timer().count());
+		assertTrue(meterRegistry.get("transfer.fx.lookup").timer().count() >= fxLookups + 2,
+				"Debit and credit should both be converted");
+		assertEquals(insufficientFunds + 1,
+				meterRegistry.get("transfer.failures").tag("reason", "insufficient_funds").counter().count());
+		assertTrue(meterRegistry.get("transfer.amount").tag("currency", "AUD").summary().count() > 0);
+		assertTrue(meterRegistry.get("transfer.lock.wait").timer().count() > 0);
+		assertTrue(meterRegistry.get("transfer.balance.update").timer().count() > 0);
+		assertEquals(0, meterRegistry.get("transfer.in.flight").gauge().value());
+	}
+
+	@Test
+	@DisplayName("Pairs without a rate of their own are triangulated through USD")
+	public void testCrossRateTriangulation() {
+		// JPN to CNY has no rate: JPN to USD (0.0069) times USD to CNY (7.2), rounded to 0.0497
+		assertEquals(Money.toUnits(new BigDecimal("49.70")),
+				currencyRateService.convert("JPN", "CNY", Money.toUnits(new BigDecimal("1000.00"))));
+		// A direct rate wins over the triangulated one (AUD to USD to JPN would be 72.33)
+		assertEquals(Money.toUnits(new BigDecimal("93.01")),
+				currencyRateService.convert("AUD", "JPN", Money.toUnits(new BigDecimal("1.00"))));
+		// No USD to AUD leg
+		assertThrows(RuntimeException.class, () -> currencyRateService.convert("JPN", "AUD", 10_000L));
+
+		// Changing one leg recomputes the pairs quoted through it
+		currencyRateService.saveCurrencyRate("USD", "CNY", new BigDecimal("7.0"));
+		try {
+			assertEquals(Money.toUnits(new BigDecimal("48.30")),
+					currencyRateService.convert("JPN", "CNY", Money.toUnits(new BigDecimal("1000.00"))));
+			assertEquals(Money.toUnits(new BigDecimal("3.5")),
+					currencyRateService.convert("AUD", "CNY", Money.toUnits(new BigDecimal("1.00"))));
+		} finally {
+			currencyRateService.saveCurrencyRate("USD", "CNY", new BigDecimal("7.2"));
+		}
+	}
+
+	@Test
+	@DisplayName("Transfers to unknown accounts or in unknown currencies are rejected before the transaction")
+	public void testTransferPreValidation() {
+		double unknownAccounts = meterRegistry.get("transfer.prevalidation.rejected").tag("reason", "unknown_account")
+				.counter().count();
+		double unsupportedCurrencies = meterRegistry.get("transfer.prevalidation.rejected")
+				.tag("reason", "unsupported_currency").counter().count();
+
+		// The first miss is confirmed in the database, a repeated one is answered from memory
+		assertThrows(RuntimeException.class,
+				() -> accountService.transferMoney("1", "missing-1", new BigDecimal("1.00"), "USD"));
+		SqlStatementCounter.start();
+		RuntimeException notFound = assertThrows(RuntimeException.class,
+				() -> accountService.transferMoney("missing-1", "1", new BigDecimal("1.00"), "USD"));
+		IllegalArgumentException unsupported = assertThrows(IllegalArgumentException.class,
+				() -> accountService.transferMoney("1", "2", new BigDecimal("1.00"), "XYZ"));
+		assertEquals(List.of(), SqlStatementCounter.stop());
+		assertEquals("Account not found: missing-1", notFound.getMessage());
+		assertEquals("Unsupported currency: XYZ", unsupported.getMessage());
+		assertEquals(unknownAccounts + 2, meterRegistry.get("transfer.prevalidation.rejected")
+				.tag("reason", "unknown_account").counter().count());
+		assertEquals(unsupportedCurrencies + 1, meterRegistry.get("transfer.prevalidation.rejected")
+				.tag("reason", "unsupported_currency").counter().count());
+
+		// Creating the account clears the cached miss
+		accountService.createAccount(new Account("missing-1", "Jones, Dan", new BigDecimal("10.00"), "USD"));
+		accountService.transferMoney("missing-1", "1", new BigDecimal("1.00"), "USD");
+		assertEquals(new BigDecimal("8.9900"), accountService.findByAccountNumber("missing-1").getBalance());
+	}
+
+	@Test
+	@DisplayName("Accounts are created in JDBC batches and imported from exports")
+	public void testBulkAccountCreation() throws IOException {
+		List<Account> accounts = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			accounts.add(new Account("bulk-" + i, "Owner " + i, new BigDecimal("25.00"), "USD"));
+		}
+		SqlStatementCounter.start();
+		assertEquals(100, accountService.createAccounts(accounts));
+		List<String> statements = SqlStatementCounter.stop();
+
+		// One batched insert per table rather than one statement per row
+		assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into accounts")).count());
+		assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into ledger_entries")).count());
+		assertEquals(0, new BigDecimal("25.00").compareTo(ledgerService.projectBalance("bulk-99")));
+		accountService.transferMoney("bulk-0", "bulk-99", new BigDecimal("5.00"), "USD");
+
+		IllegalArgumentException invalid = assertThrows(IllegalArgumentException.class,
+				() -> accountService.createAccounts(List.of(new Account("bulk-x", null, BigDecimal.ONE, "USD"))));
+		assertTrue(invalid.getMessage().startsWith("Account 0: ownerName"), invalid.getMessage());
+
+		String csv = "accountNumber,ownerName,balance,currencyCode\r\n"
+				+ "import-1,\"Smith, \"\"Jr\"\"\",10.5000,USD\r\n"
+				+ "import-2,Jones,0.0000,JPN\r\n";
+		assertEquals(2, importService.importAccounts(
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ExportFormat.CSV));
+		assertEquals("Smith, \"Jr\"", accountService.findByAccountNumber("import-1").getOwnerName());
+
+		// An export loads back as is
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		exportService.exportAccounts(ExportFormat.NDJSON, exported);
+		String renamed = exported.toString(StandardCharsets.UTF_8).replace("\"accountNumber\":\"", "\"accountNumber\":\"copy-");
+		long accountCount = accountRepository.count();
+		assertEquals(accountCount, importService.importAccounts(
+				new ByteArrayInputStream(renamed.getBytes(StandardCharsets.UTF_8)), ExportFormat.NDJSON));
+		assertEquals(accountService.findByAccountNumber("import-1").getBalance(),
+				accountService.findByAccountNumber("copy-import-1").getBalance());
+	}
+
+	@Test
+	@DisplayName("Bulkhead rejects a transfer when no slot frees up in time")
+	public void testBulkheadRejectsWhenFull() throws InterruptedException {
+		TransferBulkhead bulkhead = new TransferBulkhead(1, Duration.ofMillis(50), new SimpleMeterRegistry());
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Thread holder = new Thread(() -> bulkhead.call(() -> {
+			holding.countDown();
+			try {
+				return release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		holder.start();
+		assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+		assertThrows(TransferRejectedException.class, () -> bulkhead.call(() -> "rejected"));
+
+		release.countDown();
+		holder.join();
+		assertEquals("admitted", bulkhead.call(() -> "admitted"));
+	}
+
+	@Test
+	@DisplayName("Admission control caps transfers per account and adapts its limit to latency")
+	public void testAdmissionControl() {
+		TransferAdmissionControl admission = new TransferAdmissionControl(true, 2, 1, 4, Duration.ofMillis(50), 0.5, 1,
+				hotAccountCredits, new SimpleMeterRegistry());
+
+		// Nested calls are still in progress when the inner ones are attempted
+		String limited = admission.call("1", "2", () -> {
+			TransferThrottledException busy = assertThrows(TransferThrottledException.class,
+					() -> admission.call("2", "3", () -> "rejected"));
+			assertEquals("Too many transfers in progress for account 2, try again later", busy.getMessage());
+			return admission.call("3", "4", () -> assertThrows(TransferThrottledException.class,
+					() -> admission.call("5", "6", () -> "rejected")).getMessage());
+		});
+		assertEquals("Too many transfers in progress, try again later", limited);
+		// The inner transfer filled the limit and completed quickly
+		assertEquals(3, admission.currentLimit());
+
+		assertThrows(CannotAcquireLockException.class, () -> admission.call("1", "2", () -> {
+			throw new CannotAcquireLockException("Lock wait timeout");
+		}));
+		assertEquals(1, admission.currentLimit());
+		admission.call("1", "2", () -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			return null;
+		});
+		assertEquals(1, admission.currentLimit());
+		assertEquals("admitted", admission.call("1", "2", () -> "admitted"));
+	}
+
+	@Test
+	@DisplayName("Lock failures are retried per cause within the attempt limit and the retry budget")
+	public void testTransferRetryPolicy() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		// No refill, so only the two retries of the initial budget are available
+		TransferRetryInterceptor retry = new TransferRetryInterceptor(3, Duration.ofNanos(500_000), Duration.ofMillis(1),
+				4, 0, 2, registry);
+
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<String> conflicting = retried(retry, () -> {
+			if (calls.incrementAndGet() < 3) {
+				throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+			}
+			return "applied";
+		});
+		assertEquals("applied", conflicting.get());
+		assertEquals(3, calls.get());
+		assertEquals(2.0, registry.get("transfer.retries").tag("cause", "optimistic_lock").counter().count());
+
+		calls.set(0);
+		Supplier<String> lockTimeout = () -> {
+			calls.incrementAndGet();
+			throw new CannotAcquireLockException("Lock wait timeout");
+		};
+		assertThrows(CannotAcquireLockException.class, retried(retry, lockTimeout)::get);
+		assertEquals(1, calls.get());
+		assertEquals(1.0, registry.get("transfer.retries.denied").tags("cause", "lock_timeout", "reason", "budget")
+				.counter().count());
+
+		// Every call adds a whole retry to the budget, so only the attempt limit stops this one
+		TransferRetryInterceptor generous = new TransferRetryInterceptor(3, Duration.ofNanos(500_000), Duration.ofMillis(1),
+				4, 1, 10, registry);
+		calls.set(0);
+		assertThrows(CannotAcquireLockException.class, retried(generous, lockTimeout)::get);
+		assertEquals(3, calls.get());
+		assertEquals(1.0, registry.get("transfer.retries.denied").tags("cause", "lock_timeout", "reason", "attempts")
+				.counter().count());
+
+		calls.set(0);
+		assertThrows(IllegalStateException.class, retried(generous, () -> {
+			calls.incrementAndGet();
+			throw new IllegalStateException("Not retryable");
+		})::get);
+		assertEquals(1, calls.get());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Supplier<String> retried(TransferRetryInterceptor retry, Supplier<String> work) {
+		ProxyFactory proxyFactory = new ProxyFactory(work);
+		proxyFactory.addInterface(Supplier.class);
+		proxyFactory.addAdvice(retry);
+		return (Supplier<String>) proxyFactory.getProxy();
+	}
+
+	@Test
+	@DisplayName("Money arithmetic rounds the same way as BigDecimal HALF_UP")
+	public void testMoneyRounding() {
+		List<String> amounts = List.of("0.0001", "0.0050", "0.0149", "0.0150", "-0.0150", "123.45", "999999999.9999");
+		List<String> factors = List.of("0.01", "0.0069", "144.66", "7.2", "-0.5");
+		for (String amount : amounts) {
+			for (String factor : factors) {
+				BigDecimal expected = new BigDecimal(amount).multiply(new BigDecimal(factor)).setScale(4, RoundingMode.HALF_UP);
+				long product = Money.multiply(Money.toUnits(new BigDecimal(amount)), Money.toUnits(new BigDecimal(factor)));
+				assertEquals(expected, Money.toBigDecimal(product), amount + " x " + factor);
+			}
+		}
+
+		// Intermediate products beyond the long range take the exact path
+		long large = Money.toUnits(new BigDecimal("900000000000.0000"));
+		assertEquals(new BigDecimal("9000000000.0000"), Money.toBigDecimal(Money.multiply(large, 100L)));
+		assertThrows(ArithmeticException.class, () -> Money.multiply(large, Money.toUnits(new BigDecimal("10000"))));
+		assertEquals(new BigDecimal("0.0001"), Money.toBigDecimal(Money.toUnits(new BigDecimal("0.00005"))));
+	}
+
+	@Test
+	@DisplayName("Asynchronous transfers complete in the background and report their status")
+	public void testAsyncTransfer() throws InterruptedException {
+		AsyncTransferStatus accepted = transferEngine.submit("1", "2", new BigDecimal("50.00"), "USD");
+		AsyncTransferStatus rejected = transferEngine.submit("1", "2", new BigDecimal("5000.00"), "USD");
+		RuntimeException unknownAccount = assertThrows(RuntimeException.class,
+				() -> transferEngine.submit("1", "99", new BigDecimal("1.00"), "USD"));
+		assertEquals("Account not found: 99", unknownAccount.getMessage());
+		assertEquals("pending", accepted.status());
+
+		AsyncTransferStatus completed = awaitAsyncTransfer(accepted.id());
+		assertEquals("completed", completed.status());
+		assertNotNull(completed.transferId());
+		assertEquals("Insufficient funds in account: 1", awaitAsyncTransfer(rejected.id()).message());
+
+		// Alice's debit is part of the transfer; Bob's credit may still be on its way to his shard
+		assertEquals(new BigDecimal("949.5000"), accountService.findByAccountNumber("1").getBalance());
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (accountService.findByAccountNumber("2").getBalance().compareTo(new BigDecimal("7733")) != 0
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(new BigDecimal("7733.0000"), accountService.findByAccountNumber("2").getBalance());
+		assertNull(transferEngine.findStatus("unknown"));
+	}
+
+	@Test
+	@DisplayName("Cached accounts are refreshed by every committed balance change")
+	public void testAccountCache() {
+		AccountSnapshot cachedAlice = accountCache.find("1");
+		assertEquals(new BigDecimal("1000.0000"), cachedAlice.balance());
+		assertEquals(new BigDecimal("500.0000"), accountCache.find("2").balance());
+		assertSame(cachedAlice, accountCache.find("1"));
+
+		// Written through Hibernate
+		accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD");
+		assertEquals(new BigDecimal("949.5000"), accountCache.find("1").balance());
+		assertEquals(new BigDecimal("7733.0000"), accountCache.find("2").balance());
+
+		// Written with a JDBC batch
+		accountService.transferMoneyBatch(List.of(transfer("1", "2", "10.00", "USD")));
+		AccountSnapshot updatedAlice = accountCache.find("1");
+		assertEquals(new BigDecimal("939.4000"), updatedAlice.balance());
+		assertEquals(accountService.findByAccountNumber("1").getVersion(), updatedAlice.version());
+		assertEquals(new BigDecimal("9179.6000"), accountCache.find("2").balance());
+
+		// A rolled back transfer leaves the cached balances alone
+		assertThrows(InsufficientFundsException.class,
+				() -> accountService.transferMoney("1", "2", new BigDecimal("5000.00"), "USD"));
+		assertSame(updatedAlice, accountCache.find("1"));
+
+		assertThrows(RuntimeException.class, () -> accountCache.find("99"));
+	}
+
+	@Test
+	@DisplayName("Accounts are listed by keyset pages and exported as streams")
+	public void testAccountListingAndExport() throws IOException {
+		accountService.createAccount(new Account("export-1", "Smith, Carol", new BigDecimal("100.00"), "USD"));
+		accountService.transferMoney("export-1", "1", new BigDecimal("10.00"), "USD");
+
+		List<String> listed = new ArrayList<>();
+		long afterId = 0;
+		List<Account> page;
+		do {
+			page = accountService.listAccounts(afterId, 2);
+			for (Account account : page) {
+				assertTrue(account.getId() > afterId);
+				afterId = account.getId();
+				listed.add(account.getAccountNumber());
+			}
+		} while (page.size() == 2);
+		assertEquals(listed.size(), accountRepository.count());
+		assertTrue(listed.containsAll(List.of("1", "2", "export-1")));
+		assertThrows(IllegalArgumentException.class, () -> accountService.listAccounts(0, 0));
+
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		exportService.exportAccounts(ExportFormat.CSV, csv);
+		String[] rows = csv.toString(StandardCharsets.UTF_8).split("\r\n");
+		assertEquals("accountNumber,ownerName,balance,currencyCode", rows[0]);
+		assertEquals(listed.size() + 1, rows.length);
+		assertTrue(Arrays.asList(rows).contains("export-1,\"Smith, Carol\",89.9000,USD"));
+
+		// Opening balance, then the debit of 10 USD plus the fee
+		ByteArrayOutputStream statement = new ByteArrayOutputStream();
+		exportService.exportStatement("export-1", ExportFormat.NDJSON, statement);
+		String[] lines = statement.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].contains("\"transferId\":null,\"entryType\":\"OPENING\",\"amount\":100.0000,\"balance\":100.0000"), lines[0]);
+		assertTrue(lines[1].contains("\"entryType\":\"DEBIT\",\"amount\":-10.1000,\"balance\":89.9000"), lines[1]);
+	}
+
+	@Test
+	@DisplayName("Transfer tracing drops events instead of blocking when its buffer is full")
+	public void testTransferTracerDropsWhenFull() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		// Not started, so nothing drains the buffer of 4 events
+		TransferTracer tracer = new TransferTracer(1.0, 4, new ObjectMapper(), registry);
+		for (int i = 0; i < 6; i++) {
+			TransferTracer.Sample sample = tracer.begin();
+			assertNotNull(sample);
+			tracer.end(sample, "success", (long) i, "1", "2", BigDecimal.ONE, "USD", 1);
+		}
+		assertEquals(2, registry.get("transfer.trace.dropped").counter().count());
+
+		TransferTracer disabled = new TransferTracer(0, 4, new ObjectMapper(), registry);
+		assertNull(disabled.begin());
+	}
+
+	@Test
+	@DisplayName("A transfer takes one lock query and one batched statement per table it writes")
+	public void testTransferStatementCount() {
+		// Warm the id pools, so that no sequence call falls into the measured transfer
+		accountService.transferMoney("1", "2", new BigDecimal("1.00"), "USD");
+
+		SqlStatementCounter.start();
+		accountService.transferMoney("1", "2", new BigDecimal("1.00"), "USD");
+		List<String> statements = SqlStatementCounter.stop().stream()
+				.filter(sql -> !sql.contains("next value for"))
+				.map(sql -> sql.strip().split("\\s+")[0] + " " + sql.replaceAll("(?s).*?\\b(from|into|update)\\s+(\\w+).*", "$2"))
+				.toList();
+
+		// Lock both accounts, append the transfer and both ledger entries, update both balances
+		assertEquals(List.of("select accounts", "insert transfers", "insert ledger_entries", "update accounts"), statements);
+	}
+
+	private AsyncTransferStatus awaitAsyncTransfer(String id) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		AsyncTransferStatus status = transferEngine.findStatus(id);
+		while ("pending".equals(status.status()) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			status = transferEngine.findStatus(id);
+		}
+		return status;
+	}
+
+	private static TransferMoneyDto transfer(String source, String destination, String amount, String currencyCode) {
+		TransferMoneyDto transfer = new TransferMoneyDto();
+		transfer.setSourceAccountNumber(source);
+		transfer.setDestinationAccountNumber(destination);
+		transfer.setAmount(new BigDecimal(amount));
+		transfer.setCurrencyCode(currencyCode);
+		return transfer;
+	}
 }
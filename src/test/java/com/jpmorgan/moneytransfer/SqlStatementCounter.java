@@ -0,0 +1,34 @@
+package com.jpmorgan.moneytransfer;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL Hibernate prepares on the current thread between {@link #start()} and {@link #stop()}.
+ * A JDBC batch is prepared once however many rows it carries, so each recorded statement is one round trip.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+	static void start() {
+		statements.set(new ArrayList<>());
+	}
+
+	static List<String> stop() {
+		List<String> recorded = statements.get();
+		statements.remove();
+		return recorded;
+	}
+
+	@Override
+	public String inspect(String sql) {
+		List<String> recorded = statements.get();
+		if (recorded != null) {
+			recorded.add(sql);
+		}
+		return sql;
+	}
+}
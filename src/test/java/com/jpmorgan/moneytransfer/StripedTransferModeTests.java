@@ -0,0 +1,89 @@
+package com.jpmorgan.moneytransfer;
+
+import com.jpmorgan.moneytransfer.exception.InsufficientFundsException;
+import com.jpmorgan.moneytransfer.repository.AccountRepository;
+import com.jpmorgan.moneytransfer.repository.model.Account;
+import com.jpmorgan.moneytransfer.service.AccountService;
+import com.jpmorgan.moneytransfer.service.TransferResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+@SpringBootTest(properties = {
+		"moneytransfer.concurrency.mode=striped",
+		"spring.datasource.url=jdbc:h2:mem:stripeddb"
+})
+class StripedTransferModeTests {
+
+	@Autowired
+	private AccountService accountService;
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@BeforeEach
+	public void setup() {
+		Account aliceAccount = accountService.findByAccountNumber("1");
+		Account bobAccount = accountService.findByAccountNumber("2");
+
+		aliceAccount.setBalance(new BigDecimal("1000.00"));
+		bobAccount.setBalance(new BigDecimal("500.00"));
+
+		accountRepository.save(aliceAccount);
+		accountRepository.save(bobAccount);
+	}
+
+	@Test
+	@DisplayName("Transfer 50 USD from Alice to Bob under in-JVM stripe locks")
+	public void testStripedTransfer() {
+		long aliceVersion = accountService.findByAccountNumber("1").getVersion();
+
+		TransferResult result = accountService.transferMoney("1", "2", new BigDecimal("50.00"), "USD");
+		assertTrue(result.lockWaitNanos() >= 0);
+
+		Account alice = accountService.findByAccountNumber("1");
+		assertEquals(new BigDecimal("949.5000"), alice.getBalance());
+		// Rows are read without database locks, the version still guards against other writers
+		assertEquals(aliceVersion + 1, alice.getVersion());
+		assertEquals(new BigDecimal("7733.0000"), accountService.findByAccountNumber("2").getBalance());
+	}
+
+	@Test
+	@DisplayName("A failed striped transfer releases its stripes and changes nothing")
+	public void testStripedTransferReleasesLocksOnFailure() throws Exception {
+		assertThrows(InsufficientFundsException.class,
+				() -> accountService.transferMoney("1", "2", new BigDecimal("5000.00"), "USD"));
+		assertEquals(new BigDecimal("1000.0000"), accountService.findByAccountNumber("1").getBalance());
+
+		// Another thread would block on stripes left locked by this one
+		CompletableFuture.runAsync(() -> accountService.transferMoney("2", "1", new BigDecimal("10.00"), "JPN"))
+				.get(10, TimeUnit.SECONDS);
+		assertEquals(new BigDecimal("489.9000"), accountService.findByAccountNumber("2").getBalance());
+	}
+
+	@Test
+	@DisplayName("Opposing striped transfers all complete")
+	public void testOpposingStripedTransfers() throws Exception {
+		List<CompletableFuture<TransferResult>> transfers = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			transfers.add(CompletableFuture.supplyAsync(
+					() -> accountService.transferMoney("1", "2", new BigDecimal("1.00"), "USD")));
+			transfers.add(CompletableFuture.supplyAsync(
+					() -> accountService.transferMoney("2", "1", new BigDecimal("10.00"), "JPN")));
+		}
+		CompletableFuture.allOf(transfers.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+		assertEquals(new BigDecimal("990.5900"), accountService.findByAccountNumber("1").getBalance());
+		assertEquals(new BigDecimal("1845.6000"), accountService.findByAccountNumber("2").getBalance());
+	}
+}
@@ -0,0 +1,115 @@
+package com.jpmorgan.moneytransfer.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:controllerdb")
+@AutoConfigureMockMvc
+class AccountControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	@DisplayName("Accounts are serialized without their database id and version")
+	public void testAccountJson() throws Exception {
+		mockMvc.perform(get("/api/accounts/1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.*", hasSize(4)))
+				.andExpect(jsonPath("$.accountNumber").value("1"))
+				.andExpect(jsonPath("$.id").doesNotExist())
+				.andExpect(jsonPath("$.version").doesNotExist());
+
+		mockMvc.perform(post("/api/accounts")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"accountNumber": "json-1", "ownerName": "Carol", "balance": 250.00, "currencyCode": "USD"}
+								"""))
+				.andExpect(status().isCreated())
+				.andExpect(content().json("""
+						{"accountNumber": "json-1", "ownerName": "Carol", "balance": 250.0000, "currencyCode": "USD"}
+						""", JsonCompareMode.STRICT));
+	}
+
+	@Test
+	@DisplayName("Transfer responses are a status and a message")
+	public void testTransferResponseJson() throws Exception {
+		mockMvc.perform(post("/api/accounts/transfer")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(transfer("1", "2", "1.00", "USD")))
+				.andExpect(status().isOk())
+				.andExpect(header().string(AccountController.IDEMPOTENT_REPLAYED_HEADER, "false"))
+				.andExpect(content().json("""
+						{"status": "success", "message": "Transfer completed successfully"}
+						""", JsonCompareMode.STRICT));
+
+		mockMvc.perform(post("/api/accounts/transfer")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(transfer("1", "2", "1000000.00", "USD")))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().json("""
+						{"status": "error", "message": "Insufficient funds in account: 1"}
+						""", JsonCompareMode.STRICT));
+	}
+
+	@Test
+	@DisplayName("An unknown account is answered with 404 on every endpoint")
+	public void testAccountNotFound() throws Exception {
+		mockMvc.perform(post("/api/accounts/transfer")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(transfer("1", "99", "10.00", "USD")))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.status").value("error"))
+				.andExpect(jsonPath("$.message").value("Account not found: 99"));
+
+		mockMvc.perform(post("/api/accounts/transfer/async")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(transfer("99", "1", "10.00", "USD")))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.status").value("error"))
+				.andExpect(jsonPath("$.message").value("Account not found: 99"));
+
+		mockMvc.perform(get("/api/accounts/99"))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.message").value("Account not found: 99"));
+	}
+
+	@Test
+	@DisplayName("A malformed Idempotency-Key is rejected with 400")
+	public void testInvalidIdempotencyKey() throws Exception {
+		mockMvc.perform(post("/api/accounts/transfer")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header(AccountController.IDEMPOTENCY_KEY_HEADER, "k".repeat(256))
+						.content(transfer("1", "2", "10.00", "USD")))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.status").value("error"))
+				.andExpect(jsonPath("$.message").value("Idempotency key must be between 1 and 255 characters"));
+
+		mockMvc.perform(post("/api/accounts/transfer")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header(AccountController.IDEMPOTENCY_KEY_HEADER, " ")
+						.content(transfer("1", "2", "10.00", "USD")))
+				.andExpect(status().isBadRequest());
+	}
+
+	private static String transfer(String source, String destination, String amount, String currencyCode) {
+		return """
+				{"sourceAccountNumber": "%s", "destinationAccountNumber": "%s", "amount": %s, "currencyCode": "%s"}
+				""".formatted(source, destination, amount, currencyCode);
+	}
+}
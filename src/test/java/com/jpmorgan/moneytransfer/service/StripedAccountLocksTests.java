@@ -0,0 +1,88 @@
+package com.jpmorgan.moneytransfer.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class StripedAccountLocksTests {
+
+	private final StripedAccountLocks locks = new StripedAccountLocks(1024);
+
+	@Test
+	@DisplayName("Stripe count is rounded up to a power of two")
+	public void testStripeCount() {
+		assertEquals(1024, locks.stripeCount());
+		assertEquals(8, new StripedAccountLocks(5).stripeCount());
+		assertThrows(IllegalArgumentException.class, () -> new StripedAccountLocks(0));
+	}
+
+	@Test
+	@DisplayName("Every stripe is taken once, however often its accounts are named")
+	public void testDeduplicatedAcquisition() {
+		try (StripedAccountLocks.Locked ignored = locks.lock("2", "1", "2", "1")) {
+			assertEquals(1, locks.holdCount("1"));
+			assertEquals(1, locks.holdCount("2"));
+		}
+		assertEquals(0, locks.holdCount("1"));
+		assertEquals(0, locks.holdCount("2"));
+	}
+
+	@Test
+	@DisplayName("Two accounts on the same stripe share one lock")
+	public void testAccountsOnSameStripe() throws Exception {
+		String first = "1";
+		String second = sameStripeAs(first);
+
+		StripedAccountLocks.Locked locked = locks.lock(first, second);
+		assertEquals(1, locks.holdCount(first));
+		// Another thread cannot take either account while the shared stripe is held
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> locks.lock(second).close());
+		assertThrows(TimeoutException.class, () -> blocked.get(100, TimeUnit.MILLISECONDS));
+
+		locked.close();
+		blocked.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	@DisplayName("Stripes are released when the locked work throws")
+	public void testReleaseOnException() throws Exception {
+		assertThrows(IllegalStateException.class, () -> {
+			try (StripedAccountLocks.Locked ignored = locks.lock("1", "2")) {
+				throw new IllegalStateException("Transfer failed");
+			}
+		});
+		assertEquals(0, locks.holdCount("1"));
+		assertEquals(0, locks.holdCount("2"));
+		CompletableFuture.runAsync(() -> locks.lock("1", "2").close()).get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	@DisplayName("Locking accounts in opposite orders never deadlocks")
+	public void testOppositeOrdersDoNotDeadlock() throws Exception {
+		assertNotEquals(locks.stripeIndex("1"), locks.stripeIndex("2"));
+		CompletableFuture<Void> forward = CompletableFuture.runAsync(() -> lockRepeatedly("1", "2"));
+		CompletableFuture<Void> backward = CompletableFuture.runAsync(() -> lockRepeatedly("2", "1"));
+		CompletableFuture.allOf(forward, backward).get(30, TimeUnit.SECONDS);
+	}
+
+	private void lockRepeatedly(String... accountNumbers) {
+		for (int i = 0; i < 100_000; i++) {
+			locks.lock(accountNumbers).close();
+		}
+	}
+
+	private String sameStripeAs(String accountNumber) {
+		for (int i = 0; ; i++) {
+			String candidate = "account-" + i;
+			if (locks.stripeIndex(candidate) == locks.stripeIndex(accountNumber)) {
+				return candidate;
+			}
+		}
+	}
+}